@@ -1,6 +1,12 @@
 package com.zero.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
 /**
  * Properties specific to Jhipser Webflux.
@@ -9,4 +15,438 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+@Validated
+public class ApplicationProperties {
+
+    @Valid
+    private final Point point = new Point();
+
+    private final Batching batching = new Batching();
+
+    private final UserCleanup userCleanup = new UserCleanup();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final UserFilter userFilter = new UserFilter();
+
+    private final UserCache userCache = new UserCache();
+
+    private final SqlTemplates sqlTemplates = new SqlTemplates();
+
+    public Point getPoint() {
+        return point;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public UserCleanup getUserCleanup() {
+        return userCleanup;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public UserFilter getUserFilter() {
+        return userFilter;
+    }
+
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    public SqlTemplates getSqlTemplates() {
+        return sqlTemplates;
+    }
+
+    public static class Point {
+
+        /**
+         * Number of rows written by a single multi-row INSERT.
+         */
+        @Min(1)
+        private int batchSize = 500;
+
+        /**
+         * Number of changes kept by the change feed, for the clients resuming with a {@code Last-Event-ID}.
+         */
+        private int changeHistorySize = 1000;
+
+        /**
+         * Interval of the keep-alive comments sent to the idle subscribers of the change feed.
+         */
+        private Duration changeHeartbeat = Duration.ofSeconds(20);
+
+        /**
+         * Maximum number of ids of a multi-get request.
+         */
+        private int maxIds = 5000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getChangeHistorySize() {
+            return changeHistorySize;
+        }
+
+        public void setChangeHistorySize(int changeHistorySize) {
+            this.changeHistorySize = changeHistorySize;
+        }
+
+        public Duration getChangeHeartbeat() {
+            return changeHeartbeat;
+        }
+
+        public void setChangeHeartbeat(Duration changeHeartbeat) {
+            this.changeHeartbeat = changeHeartbeat;
+        }
+
+        public int getMaxIds() {
+            return maxIds;
+        }
+
+        public void setMaxIds(int maxIds) {
+            this.maxIds = maxIds;
+        }
+    }
+
+    public static class Batching {
+
+        /**
+         * Time during which the concurrent lookups by key are collected before being read with a single query.
+         */
+        private Duration window = Duration.ofMillis(2);
+
+        /**
+         * Maximum number of keys read by a single query, a full batch being read without waiting for the end of the window.
+         */
+        private int maxBatchSize = 100;
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class UserCleanup {
+
+        /**
+         * Maximum number of not activated users removed by a single transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Pause between two chunks, leaving the connections of the pool to the other requests.
+         */
+        private Duration pause = Duration.ofMillis(100);
+
+        /**
+         * Only counts the users which would be removed, without removing them.
+         */
+        private boolean dryRun = false;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getPause() {
+            return pause;
+        }
+
+        public void setPause(Duration pause) {
+            this.pause = pause;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        public void setDryRun(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads hashing the passwords, the number of processors if not positive.
+         */
+        private int threads = 0;
+
+        /**
+         * Maximum number of hashings waiting for a thread, the following ones being rejected.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * Log rounds of BCrypt: the passwords hashed with fewer rounds are hashed again on the next successful login.
+         */
+        private int strength = 10;
+
+        /**
+         * Delay advised to the clients whose request was rejected, in the {@code Retry-After} header.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public void setStrength(int strength) {
+            this.strength = strength;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class RateLimit {
+
+        /**
+         * Maximum number of clients, or of logins, tracked for each route, the least recently seen ones being forgotten.
+         */
+        private int maxKeys = 100_000;
+
+        /**
+         * Number of proxies in front of the application, each appending the address it received the request from to the
+         * {@code X-Forwarded-For} header. The client address is the one appended by the first of them, the previous ones being
+         * sent by the client; 0 to use the remote address of the request.
+         */
+        private int trustedProxies = 0;
+
+        /**
+         * The limited routes.
+         */
+        private List<Route> routes = new ArrayList<>();
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public int getTrustedProxies() {
+            return trustedProxies;
+        }
+
+        public void setTrustedProxies(int trustedProxies) {
+            this.trustedProxies = trustedProxies;
+        }
+
+        public List<Route> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<Route> routes) {
+            this.routes = routes;
+        }
+
+        public static class Route {
+
+            /**
+             * Path of the limited {@code POST} requests.
+             */
+            private String path;
+
+            /**
+             * Period of the limits, over which the requests are spread.
+             */
+            private Duration period = Duration.ofMinutes(1);
+
+            /**
+             * Maximum number of requests of a client IP address per period, not limited if not positive.
+             */
+            private int ipLimit = 0;
+
+            /**
+             * Maximum number of requests for a login per period, not limited if not positive.
+             */
+            private int loginLimit = 0;
+
+            /**
+             * Property of the JSON body holding the login, the whole body being the login if not set.
+             */
+            private String loginField;
+
+            public String getPath() {
+                return path;
+            }
+
+            public void setPath(String path) {
+                this.path = path;
+            }
+
+            public Duration getPeriod() {
+                return period;
+            }
+
+            public void setPeriod(Duration period) {
+                this.period = period;
+            }
+
+            public int getIpLimit() {
+                return ipLimit;
+            }
+
+            public void setIpLimit(int ipLimit) {
+                this.ipLimit = ipLimit;
+            }
+
+            public int getLoginLimit() {
+                return loginLimit;
+            }
+
+            public void setLoginLimit(int loginLimit) {
+                this.loginLimit = loginLimit;
+            }
+
+            public String getLoginField() {
+                return loginField;
+            }
+
+            public void setLoginField(String loginField) {
+                this.loginField = loginField;
+            }
+        }
+    }
+
+    public static class UserFilter {
+
+        /**
+         * Whether the lookups of unknown logins and emails are answered from the in-memory filter, without querying the database.
+         * Only for a single instance of the application, as the users saved by another instance are unknown to the filter until
+         * its next rebuild.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Expected rate of the unknown logins and emails which are still looked up in the database.
+         */
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * Period of the rebuilds of the filter, which forget the deleted users and the changed logins and emails.
+         */
+        private Duration rebuildInterval = Duration.ofHours(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    public static class UserCache {
+
+        /**
+         * Maximum number of users in each of the caches of the users by login and by email.
+         */
+        private long maxEntries = 10_000;
+
+        /**
+         * Time after which a cached user is read again, which bounds how long a change made by another instance is ignored.
+         */
+        private Duration timeToLive = Duration.ofSeconds(10);
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    public static class SqlTemplates {
+
+        /**
+         * Maximum number of rendered select statements kept, one for each entity, select list, shape of criteria and sort.
+         */
+        private long maxEntries = 1_000;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.zero.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * In-process caches, backed by Caffeine.
+ * <p>
+ * The caches are bounded by {@code jhipster.cache.caffeine.max-entries} and {@code jhipster.cache.caffeine.time-to-live-seconds},
+ * and record their statistics, which are published by the Spring Boot cache metrics ({@code cache.gets}, {@code cache.evictions}...).
+ * The caches of the users have their own bounds, {@code application.user-cache.max-entries} and a short
+ * {@code application.user-cache.time-to-live}. The rendered SQL statements never change, so their cache is only bounded by
+ * {@code application.sql-templates.max-entries}.
+ * The caches of rows are {@link GuardedCache}s, so that a row read before a change is not put back after its eviction. The
+ * points changed by another instance are evicted from their cache by the {@link com.zero.service.PointChangeService}, on
+ * PostgreSQL.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    // the caches of rows, whose puts must not undo the evictions of the changes
+    private static final Set<String> GUARDED_CACHES = new HashSet<>(
+        Arrays.asList(
+            com.zero.repository.PointRepository.POINTS_CACHE,
+            com.zero.repository.UserRepository.USERS_BY_LOGIN_CACHE,
+            com.zero.repository.UserRepository.USERS_BY_EMAIL_CACHE
+        )
+    );
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final ApplicationProperties applicationProperties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    public CacheManager cacheManager() {
+        JHipsterProperties.Cache.Caffeine caffeine = jHipsterProperties.getCache().getCaffeine();
+        log.debug("Creating caches of {} entries living {}s", caffeine.getMaxEntries(), caffeine.getTimeToLiveSeconds());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return GUARDED_CACHES.contains(name)
+                    ? new GuardedCache(name, cache, isAllowNullValues())
+                    : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(
+            Caffeine
+                .newBuilder()
+                .maximumSize(caffeine.getMaxEntries())
+                .expireAfterWrite(Duration.ofSeconds(caffeine.getTimeToLiveSeconds()))
+                .recordStats()
+        );
+        // the caches are created up front, so that their metrics are registered at startup
+        cacheManager.setCacheNames(
+            Arrays.asList(
+                com.zero.repository.PointRepository.POINTS_CACHE
+                // jhipster-needle-caffeine-add-entry
+            )
+        );
+        // the users are checked by each authentication, and are not evicted by the changes made by the other instances
+        ApplicationProperties.UserCache userCache = applicationProperties.getUserCache();
+        Caffeine<Object, Object> users = Caffeine
+            .newBuilder()
+            .maximumSize(userCache.getMaxEntries())
+            .expireAfterWrite(userCache.getTimeToLive())
+            .recordStats();
+        cacheManager.registerCustomCache(com.zero.repository.UserRepository.USERS_BY_LOGIN_CACHE, users.build());
+        cacheManager.registerCustomCache(com.zero.repository.UserRepository.USERS_BY_EMAIL_CACHE, users.build());
+        cacheManager.registerCustomCache(
+            com.zero.service.EntityManager.SQL_TEMPLATES_CACHE,
+            Caffeine.newBuilder().maximumSize(applicationProperties.getSqlTemplates().getMaxEntries()).recordStats().build()
+        );
+        return cacheManager;
+    }
+}
@@ -0,0 +1,87 @@
+package com.zero.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BinaryOperator;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * A Caffeine cache of rows read from the database, whose puts never undo a concurrent eviction.
+ * <p>
+ * A reader takes a {@link #stamp(Object)} of the key before querying the database, and puts the row it read with
+ * {@link #putIfNotEvicted(Object, Object, long, BinaryOperator)}: if the key was evicted since the stamp, the row may be the
+ * one replaced by the change which evicted it, so it is not kept. The stamps count the evictions, striped by the hash of the
+ * keys, so the eviction of another key of the same stripe may also skip a put, which only costs a cache miss.
+ */
+public class GuardedCache extends CaffeineCache {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    public GuardedCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    /**
+     * @param key the key.
+     * @return the stamp to give to {@link #putIfNotEvicted(Object, Object, long, BinaryOperator)}, taken before the query.
+     */
+    public long stamp(Object key) {
+        return evictions.get(stripe(key));
+    }
+
+    /**
+     * Puts a value read from the database, unless its key was evicted since the stamp was taken.
+     *
+     * @param key the key.
+     * @param value the value.
+     * @param stamp the stamp of the key, taken before the value was read.
+     * @param remapping the value to keep, from the cached one and the given one, if the key is already cached.
+     */
+    public void putIfNotEvicted(Object key, Object value, long stamp, BinaryOperator<Object> remapping) {
+        int stripe = stripe(key);
+        if (evictions.get(stripe) != stamp) {
+            return;
+        }
+        getNativeCache().asMap().merge(key, value, remapping);
+        // an eviction between the check and the put wins
+        if (evictions.get(stripe) != stamp) {
+            getNativeCache().invalidate(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictions.incrementAndGet(stripe(key));
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.incrementAndGet(stripe(key));
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        incrementAll();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        incrementAll();
+        return super.invalidate();
+    }
+
+    private void incrementAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            evictions.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
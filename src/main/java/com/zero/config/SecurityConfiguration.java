@@ -3,9 +3,12 @@ package com.zero.config;
 import static org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers.pathMatchers;
 
 import com.zero.security.AuthoritiesConstants;
+import com.zero.security.PasswordHashingRejectedException;
+import com.zero.security.PasswordHashingScheduler;
 import com.zero.security.jwt.JWTFilter;
 import com.zero.security.jwt.TokenProvider;
 import com.zero.web.filter.SpaWebFilter;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -15,6 +18,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,21 +42,33 @@ public class SecurityConfiguration {
 
     private final SecurityProblemSupport problemSupport;
 
+    private final ReactiveUserDetailsPasswordService userDetailsPasswordService;
+
+    private final PasswordHashingScheduler passwordHashingScheduler;
+
+    private final ApplicationProperties applicationProperties;
+
     public SecurityConfiguration(
         ReactiveUserDetailsService userDetailsService,
         TokenProvider tokenProvider,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        ReactiveUserDetailsPasswordService userDetailsPasswordService,
+        PasswordHashingScheduler passwordHashingScheduler,
+        ApplicationProperties applicationProperties
     ) {
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.jHipsterProperties = jHipsterProperties;
         this.problemSupport = problemSupport;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.applicationProperties = applicationProperties;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(applicationProperties.getPasswordHashing().getStrength());
     }
 
     @Bean
@@ -61,7 +77,14 @@ public class SecurityConfiguration {
             userDetailsService
         );
         authenticationManager.setPasswordEncoder(passwordEncoder());
-        return authenticationManager;
+        authenticationManager.setScheduler(passwordHashingScheduler.scheduler());
+        // the passwords hashed with fewer rounds than the configured strength are hashed again once checked
+        authenticationManager.setUserDetailsPasswordService(userDetailsPasswordService);
+        // the only scheduler of the manager is the one hashing the passwords
+        return authentication ->
+            authenticationManager
+                .authenticate(authentication)
+                .onErrorMap(RejectedExecutionException.class, PasswordHashingRejectedException::new);
     }
 
     @Bean
@@ -0,0 +1,201 @@
+package com.zero.repository;
+
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Batches the concurrent lookups of single entities by key: the keys requested within {@code application.batching.window},
+ * or until {@code application.batching.max-batch-size} keys, are read with a single query whose results are handed back to
+ * each caller. A key which is already waiting for its batch is not read a second time, but a key whose query is already sent
+ * is read again by a later lookup, which could otherwise get the row as it was before a change committed in the meantime.
+ * <p>
+ * The batched query runs outside of the transactions of the callers, so the lookups made within a transaction, even a
+ * read-only one, are not batched: they would not see the changes of their transaction, and their transaction would hold a
+ * connection of the pool while they wait for the batched query, which needs another one, so that as many concurrent lookups
+ * as connections would wait forever.
+ * <p>
+ * The number of keys of the batches, the time spent waiting for the end of the window and the lookups sharing the query of
+ * another one are recorded in the {@code batch.loader.size}, {@code batch.loader.wait} and {@code batch.loader.shared}
+ * metrics, tagged with the name of the loader.
+ */
+class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Flux<V>> loader;
+
+    private final Function<V, K> keyExtractor;
+
+    private final UnaryOperator<V> copier;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer waitTimes;
+
+    private final Counter sharedLookups;
+
+    // the lookups waiting for their batch to be sent
+    private final Map<K, Sinks.One<V>> inFlight = new HashMap<>();
+
+    private Batch<K> pending;
+
+    /**
+     * @param name the name of the loader, for the metrics.
+     * @param loader the query reading the entities of some keys.
+     * @param keyExtractor the key of an entity.
+     * @param copier the copy of an entity, as each caller gets its own entity.
+     * @param applicationProperties the properties of the batches.
+     * @param meterRegistry the registry of the metrics.
+     */
+    BatchLoader(
+        String name,
+        Function<Collection<K>, Flux<V>> loader,
+        Function<V, K> keyExtractor,
+        UnaryOperator<V> copier,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.loader = loader;
+        this.keyExtractor = keyExtractor;
+        this.copier = copier;
+        this.window = applicationProperties.getBatching().getWindow();
+        this.maxBatchSize = applicationProperties.getBatching().getMaxBatchSize();
+        this.batchSizes =
+            DistributionSummary
+                .builder("batch.loader.size")
+                .description("Number of keys read by a batched query")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.waitTimes =
+            Timer
+                .builder("batch.loader.wait")
+                .description("Time between the first lookup of a batch and its query")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.sharedLookups =
+            Counter
+                .builder("batch.loader.shared")
+                .description("Number of lookups of a key which was already being read")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up the entity of a key.
+     *
+     * @param key the key.
+     * @return the entity, or an empty {@link Mono} if there is none.
+     */
+    Mono<V> load(K key) {
+        return isInTransaction()
+            .flatMap(inTransaction -> inTransaction ? loader.apply(Collections.singletonList(key)).next() : enqueue(key));
+    }
+
+    private static Mono<Boolean> isInTransaction() {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .map(TransactionSynchronizationManager::isActualTransactionActive)
+            .onErrorResume(NoTransactionException.class, e -> Mono.just(false));
+    }
+
+    private Mono<V> enqueue(K key) {
+        Sinks.One<V> sink;
+        Batch<K> started = null;
+        Batch<K> full = null;
+        synchronized (this) {
+            sink = inFlight.get(key);
+            if (sink != null) {
+                sharedLookups.increment();
+            } else {
+                sink = Sinks.one();
+                inFlight.put(key, sink);
+                if (pending == null) {
+                    pending = new Batch<>(System.nanoTime());
+                    started = pending;
+                }
+                pending.keys.add(key);
+                if (pending.keys.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = null;
+                }
+            }
+        }
+        if (full != null) {
+            send(full);
+        } else if (started != null) {
+            Batch<K> batch = started;
+            Mono.delay(window).subscribe(tick -> sendIfPending(batch));
+        }
+        return sink.asMono().map(copier);
+    }
+
+    private void sendIfPending(Batch<K> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // already sent, as it was full
+                return;
+            }
+            pending = null;
+        }
+        send(batch);
+    }
+
+    private void send(Batch<K> batch) {
+        Map<K, Sinks.One<V>> sinks = new HashMap<>();
+        synchronized (this) {
+            for (K key : batch.keys) {
+                sinks.put(key, inFlight.remove(key));
+            }
+        }
+        batchSizes.record(batch.keys.size());
+        waitTimes.record(System.nanoTime() - batch.start, TimeUnit.NANOSECONDS);
+        loader
+            .apply(batch.keys)
+            .collectMap(keyExtractor)
+            .subscribe(
+                values ->
+                    sinks.forEach(
+                        (key, sink) -> {
+                            V value = values.get(key);
+                            if (value != null) {
+                                sink.tryEmitValue(value);
+                            } else {
+                                sink.tryEmitEmpty();
+                            }
+                        }
+                    ),
+                error -> sinks.values().forEach(sink -> sink.tryEmitError(error))
+            );
+    }
+
+    private static class Batch<K> {
+
+        private final long start;
+
+        private final List<K> keys = new ArrayList<>();
+
+        Batch(long start) {
+            this.start = start;
+        }
+    }
+}
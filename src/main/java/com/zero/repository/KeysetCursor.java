@@ -0,0 +1,93 @@
+package com.zero.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+/**
+ * Position of the last row of a page read with keyset pagination: the sort order, the value of the sorted property and
+ * the id of that row.
+ * <p>
+ * The cursor is handed to the clients as an opaque, url-safe token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Sort.Order order;
+
+    private final String value;
+
+    private final Long id;
+
+    private KeysetCursor(Sort.Order order, String value, Long id) {
+        Assert.notNull(order, "order is null");
+        Assert.notNull(id, "id is null");
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor of the given row.
+     * @param order the sort order of the page.
+     * @param value the value of the sorted property of the last row, or null if the page is sorted by id.
+     * @param id the id of the last row.
+     * @return the cursor.
+     */
+    public static KeysetCursor of(Sort.Order order, String value, Long id) {
+        return new KeysetCursor(order, value, id);
+    }
+
+    /**
+     * Reads a cursor from a token previously generated by {@link #encode()}.
+     * @param token the token sent by the client.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is not a valid cursor.
+     */
+    public static KeysetCursor decode(String token) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = decoded.split("\\" + SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+        Long id = Long.valueOf(parts[2]);
+        String value = parts.length == 4 ? parts[3] : null;
+        return new KeysetCursor(new Sort.Order(direction, parts[0]), value, id);
+    }
+
+    /**
+     * @return the opaque token to send to the client.
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder()
+            .append(order.getProperty())
+            .append(SEPARATOR)
+            .append(order.getDirection().name())
+            .append(SEPARATOR)
+            .append(id);
+        if (value != null) {
+            builder.append(SEPARATOR).append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort.Order getOrder() {
+        return order;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{order=" + order + ", value='" + value + "', id=" + id + "}";
+    }
+}
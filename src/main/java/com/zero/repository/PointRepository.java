@@ -1,7 +1,13 @@
 package com.zero.repository;
 
 import com.zero.domain.Point;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
@@ -15,6 +21,8 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("unused")
 @Repository
 public interface PointRepository extends R2dbcRepository<Point, Long>, PointRepositoryInternal {
+    String POINTS_CACHE = "points";
+
     // just to avoid having unambigous methods
     @Override
     Flux<Point> findAll();
@@ -24,15 +32,29 @@ public interface PointRepository extends R2dbcRepository<Point, Long>, PointRepo
 
     @Override
     <S extends Point> Mono<S> save(S entity);
+
+    @Override
+    Mono<Void> deleteById(Long id);
 }
 
 interface PointRepositoryInternal {
     <S extends Point> Mono<S> insert(S entity);
+    Flux<Point> insertAll(List<Point> entities);
     <S extends Point> Mono<S> save(S entity);
     Mono<Integer> update(Point entity);
+    Mono<Point> updateAndGet(Point entity, Long expectedVersion);
+    Mono<Point> partialUpdateAndGet(Point entity, Long expectedVersion);
 
     Flux<Point> findAll();
+    <T> Flux<T> findAllRows(BiFunction<Row, RowMetadata, T> rowMapper);
     Mono<Point> findById(Long id);
+    Flux<Point> findByIds(Collection<Long> ids);
+    Mono<Void> deleteById(Long id);
     Flux<Point> findAllBy(Pageable pageable);
     Flux<Point> findAllBy(Pageable pageable, Criteria criteria);
+    Flux<Point> findAllBy(Pageable pageable, Criteria criteria, Collection<String> fields);
+    Flux<Point> findAllByKeyset(Sort.Order order, KeysetCursor after, int limit);
+    Flux<Point> findAllByKeyset(Sort.Order order, KeysetCursor after, int limit, Collection<String> fields);
+    Flux<Point> search(String query, Pageable pageable);
+    Mono<Long> countSearch(String query);
 }
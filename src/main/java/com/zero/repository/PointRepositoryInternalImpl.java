@@ -3,27 +3,37 @@ package com.zero.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.zero.config.ApplicationProperties;
+import com.zero.config.GuardedCache;
 import com.zero.domain.Point;
 import com.zero.repository.rowmapper.PointRowMapper;
 import com.zero.service.EntityManager;
+import com.zero.service.PointChangeService;
+import com.zero.service.dto.PointChangeDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.function.BiFunction;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
-import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -39,13 +49,78 @@ class PointRepositoryInternalImpl implements PointRepositoryInternal {
 
     private final PointRowMapper pointMapper;
 
+    private final GuardedCache pointsCache;
+
+    private final PointChangeService pointChangeService;
+
+    private final BatchLoader<Long, Point> pointLoader;
+
     private static final Table entityTable = Table.aliased("point", EntityManager.ENTITY_ALIAS);
 
-    public PointRepositoryInternalImpl(R2dbcEntityTemplate template, EntityManager entityManager, PointRowMapper pointMapper) {
+    private static final List<Expression> columns = PointSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+
+    private static final String UPDATE_SQL =
+        "UPDATE point SET title = :title, description = :description, version = version + 1 WHERE id = :id";
+
+    // null values keep the stored value of the column
+    private static final String PARTIAL_UPDATE_SQL =
+        "UPDATE point SET title = COALESCE(:title, title), description = COALESCE(:description, description)," +
+        " version = version + 1 WHERE id = :id";
+
+    // appended to the updates guarded by the version read by the client
+    private static final String VERSION_CONDITION = " AND version = :version";
+
+    private static final String RETURNED_COLUMNS = "id AS e_id, title AS e_title, description AS e_description, version AS e_version";
+
+    // a single array parameter on PostgreSQL, so the statement is the same whatever the number of ids
+    private static final String FIND_BY_IDS_SQL = "SELECT " + RETURNED_COLUMNS + " FROM point WHERE id = ANY(:ids)";
+
+    private static final String H2_FIND_BY_IDS_SQL = "SELECT " + RETURNED_COLUMNS + " FROM point WHERE id IN (:ids)";
+
+    private static final String DELETE_SQL = "DELETE FROM point WHERE id = :id";
+
+    private static final String FIND_ALL_ROWS_SQL = "SELECT id, title, description, version FROM point ORDER BY id";
+
+    // ranked full-text search, see the 20261016100000_added_search_Point changelog
+    private static final String SEARCH_SQL =
+        "SELECT e.id AS e_id, e.title AS e_title, e.description AS e_description, e.version AS e_version" +
+        " FROM point e, websearch_to_tsquery('simple', :query) query WHERE e.search_vector @@ query" +
+        " ORDER BY ts_rank(e.search_vector, query) DESC, e.id LIMIT :limit OFFSET :offset";
+
+    private static final String COUNT_SEARCH_SQL =
+        "SELECT count(*) FROM point e WHERE e.search_vector @@ websearch_to_tsquery('simple', :query)";
+
+    private static final String H2_SEARCH_SQL =
+        "SELECT e.id AS e_id, e.title AS e_title, e.description AS e_description, e.version AS e_version" +
+        " FROM FT_SEARCH_DATA(:query, 0, 0) ft JOIN point e ON e.id = CAST(ARRAY_GET(ft.\"KEYS\", 1) AS BIGINT)" +
+        " WHERE ft.\"TABLE\" = 'POINT' ORDER BY ft.\"SCORE\" DESC, e.id LIMIT :limit OFFSET :offset";
+
+    private static final String H2_COUNT_SEARCH_SQL = "SELECT count(*) FROM FT_SEARCH_DATA(:query, 0, 0) ft WHERE ft.\"TABLE\" = 'POINT'";
+
+    public PointRepositoryInternalImpl(
+        R2dbcEntityTemplate template,
+        EntityManager entityManager,
+        PointRowMapper pointMapper,
+        CacheManager cacheManager,
+        PointChangeService pointChangeService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
         this.pointMapper = pointMapper;
+        this.pointsCache = (GuardedCache) cacheManager.getCache(PointRepository.POINTS_CACHE);
+        this.pointChangeService = pointChangeService;
+        this.pointLoader =
+            new BatchLoader<>(
+                "points",
+                this::findByIds,
+                Point::getId,
+                PointRepositoryInternalImpl::copy,
+                applicationProperties,
+                meterRegistry
+            );
     }
 
     @Override
@@ -58,27 +133,66 @@ class PointRepositoryInternalImpl implements PointRepositoryInternal {
         return createQuery(pageable, criteria).all();
     }
 
-    RowsFetchSpec<Point> createQuery(Pageable pageable, Criteria criteria) {
-        List<Expression> columns = PointSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+    // only the columns of the given fields are read, the other fields of the points are null
+    @Override
+    public Flux<Point> findAllBy(Pageable pageable, Criteria criteria, Collection<String> fields) {
+        List<Expression> selectedColumns = PointSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, fields);
+        return entityManager
+            .createSelect(entityTable, selectedColumns, Point.class, pageable, criteria)
+            .prepare(db)
+            .map((row, metadata) -> pointMapper.apply(row, EntityManager.ENTITY_ALIAS, fields))
+            .all();
+    }
 
-        String select = entityManager.createSelect(selectFrom, Point.class, pageable, criteria);
-        String alias = entityTable.getReferenceName().getReference();
-        String selectWhere = Optional
-            .ofNullable(criteria)
-            .map(
-                crit ->
-                    new StringBuilder(select)
-                        .append(" ")
-                        .append("WHERE")
-                        .append(" ")
-                        .append(alias)
-                        .append(".")
-                        .append(crit.toString())
-                        .toString()
+    @Override
+    public Flux<Point> findAllByKeyset(Sort.Order order, KeysetCursor after, int limit) {
+        return findAllByKeyset(order, after, limit, PointSqlHelper.FIELDS);
+    }
+
+    @Override
+    public Flux<Point> findAllByKeyset(Sort.Order order, KeysetCursor after, int limit, Collection<String> fields) {
+        return entityManager
+            .createKeysetSelect(
+                entityTable,
+                PointSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, fields),
+                Point.class,
+                order,
+                after != null ? after.getValue() : null,
+                after != null ? after.getId() : null,
+                limit
             )
-            .orElse(select); // TODO remove once https://github.com/spring-projects/spring-data-jdbc/issues/907 will be fixed
-        return db.sql(selectWhere).map(this::process);
+            .prepare(db)
+            .map((row, metadata) -> pointMapper.apply(row, EntityManager.ENTITY_ALIAS, fields))
+            .all();
+    }
+
+    RowsFetchSpec<Point> createQuery(Pageable pageable, Criteria criteria) {
+        return entityManager.createSelect(entityTable, columns, Point.class, pageable, criteria).prepare(db).map(this::process);
+    }
+
+    @Override
+    public Flux<Point> search(String query, Pageable pageable) {
+        return db
+            .sql(entityManager.isH2() ? H2_SEARCH_SQL : SEARCH_SQL)
+            .bind("query", query)
+            .bind(EntityManager.LIMIT_PARAMETER, pageable.getPageSize())
+            .bind(EntityManager.OFFSET_PARAMETER, pageable.getOffset())
+            .map(this::process)
+            .all();
+    }
+
+    @Override
+    public Mono<Long> countSearch(String query) {
+        return db
+            .sql(entityManager.isH2() ? H2_COUNT_SEARCH_SQL : COUNT_SEARCH_SQL)
+            .bind("query", query)
+            .map(row -> row.get(0, Long.class))
+            .one();
+    }
+
+    @Override
+    public <T> Flux<T> findAllRows(BiFunction<Row, RowMetadata, T> rowMapper) {
+        return db.sql(FIND_ALL_ROWS_SQL).map(rowMapper).all();
     }
 
     @Override
@@ -86,9 +200,46 @@ class PointRepositoryInternalImpl implements PointRepositoryInternal {
         return findAllBy(null, null);
     }
 
+    // a point read before a concurrent change is not cached, nor is a version older than the cached one
     @Override
     public Mono<Point> findById(Long id) {
-        return createQuery(null, where("id").is(id)).one();
+        return Mono.defer(
+            () -> {
+                Point cached = pointsCache.get(id, Point.class);
+                if (cached != null) {
+                    return Mono.just(copy(cached));
+                }
+                long stamp = pointsCache.stamp(id);
+                return pointLoader
+                    .load(id)
+                    .doOnNext(entity -> pointsCache.putIfNotEvicted(id, copy(entity), stamp, PointRepositoryInternalImpl::newer));
+            }
+        );
+    }
+
+    private static Object newer(Object cached, Object loaded) {
+        Long cachedVersion = ((Point) cached).getVersion();
+        Long loadedVersion = ((Point) loaded).getVersion();
+        return cachedVersion != null && loadedVersion != null && loadedVersion < cachedVersion ? cached : loaded;
+    }
+
+    @Override
+    public Flux<Point> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        DatabaseClient.GenericExecuteSpec spec = entityManager.isH2()
+            ? db.sql(H2_FIND_BY_IDS_SQL).bind("ids", new ArrayList<>(ids))
+            : db.sql(FIND_BY_IDS_SQL).bind("ids", ids.toArray(new Long[0]));
+        return spec.map(this::process).all();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return evict(id)
+            .then(db.sql(DELETE_SQL).bind("id", id).fetch().rowsUpdated())
+            .filter(deleted -> deleted > 0)
+            .flatMap(deleted -> pointChangeService.recordChange(PointChangeDTO.Type.DELETED, id, null));
     }
 
     private Point process(Row row, RowMetadata metadata) {
@@ -98,7 +249,48 @@ class PointRepositoryInternalImpl implements PointRepositoryInternal {
 
     @Override
     public <S extends Point> Mono<S> insert(S entity) {
-        return entityManager.insert(entity);
+        return entityManager
+            .insert(entity)
+            .flatMap(
+                saved -> pointChangeService.recordChange(PointChangeDTO.Type.CREATED, saved.getId(), saved.getVersion()).thenReturn(saved)
+            );
+    }
+
+    @Override
+    public Flux<Point> insertAll(List<Point> entities) {
+        if (entities.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO point (title, description) VALUES ");
+        for (int i = 0; i < entities.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:title").append(i).append(", :description").append(i).append(')');
+        }
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql.toString()).filter(statement -> statement.returnGeneratedValues("id"));
+        for (int i = 0; i < entities.size(); i++) {
+            Point entity = entities.get(i);
+            spec = spec.bind("title" + i, entity.getTitle());
+            spec =
+                entity.getDescription() != null
+                    ? spec.bind("description" + i, entity.getDescription())
+                    : spec.bindNull("description" + i, String.class);
+        }
+        // the generated ids are returned in the order of the VALUES list
+        return spec
+            .map(row -> row.get(0, Long.class))
+            .all()
+            .index()
+            .map(
+                indexedId -> {
+                    Point entity = entities.get(indexedId.getT1().intValue());
+                    entity.setId(indexedId.getT2());
+                    entity.setVersion(0L);
+                    return entity;
+                }
+            )
+            .concatMap(entity -> pointChangeService.recordChange(PointChangeDTO.Type.CREATED, entity.getId(), 0L).thenReturn(entity));
     }
 
     @Override
@@ -120,18 +312,106 @@ class PointRepositoryInternalImpl implements PointRepositoryInternal {
 
     @Override
     public Mono<Integer> update(Point entity) {
-        //fixme is this the proper way?
-        return r2dbcEntityTemplate.update(entity).thenReturn(1);
+        return evict(entity.getId())
+            .then(bindUpdate(db.sql(UPDATE_SQL), entity).fetch().rowsUpdated())
+            .flatMap(
+                updated ->
+                    updated > 0
+                        ? pointChangeService.recordChange(PointChangeDTO.Type.UPDATED, entity.getId(), null).thenReturn(updated)
+                        : Mono.just(updated)
+            );
+    }
+
+    @Override
+    public Mono<Point> updateAndGet(Point entity, Long expectedVersion) {
+        return evict(entity.getId()).then(updateReturning(UPDATE_SQL, entity, expectedVersion));
+    }
+
+    @Override
+    public Mono<Point> partialUpdateAndGet(Point entity, Long expectedVersion) {
+        return evict(entity.getId()).then(updateReturning(PARTIAL_UPDATE_SQL, entity, expectedVersion));
+    }
+
+    private Mono<Point> updateReturning(String update, Point entity, Long expectedVersion) {
+        Mono<Point> updated;
+        if (expectedVersion == null) {
+            updated = bindUpdate(db.sql(entityManager.createUpdateReturning(update, RETURNED_COLUMNS)), entity).map(this::process).one();
+        } else {
+            updated =
+                bindUpdate(db.sql(entityManager.createUpdateReturning(update + VERSION_CONDITION, RETURNED_COLUMNS)), entity)
+                    .bind("version", expectedVersion)
+                    .map(this::process)
+                    .one();
+        }
+        return updated.flatMap(
+            result -> pointChangeService.recordChange(PointChangeDTO.Type.UPDATED, result.getId(), result.getVersion()).thenReturn(result)
+        );
+    }
+
+    /**
+     * Removes the point from the cache, now and again once the current transaction, if any, is completed: a concurrent
+     * read could otherwise cache the row as it was before the transaction.
+     */
+    private Mono<Void> evict(Long id) {
+        return Mono.defer(
+            () -> {
+                pointsCache.evict(id);
+                return TransactionSynchronizationManager
+                    .forCurrentTransaction()
+                    .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                    .doOnNext(
+                        synchronizationManager ->
+                            synchronizationManager.registerSynchronization(
+                                new TransactionSynchronization() {
+                                    @Override
+                                    public Mono<Void> afterCompletion(int status) {
+                                        return Mono.fromRunnable(() -> pointsCache.evict(id));
+                                    }
+                                }
+                            )
+                    )
+                    .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                    .then();
+            }
+        );
+    }
+
+    // the cached points are never handed out, so that a caller can't change them
+    private static Point copy(Point entity) {
+        return new Point().id(entity.getId()).title(entity.getTitle()).description(entity.getDescription()).version(entity.getVersion());
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindUpdate(DatabaseClient.GenericExecuteSpec spec, Point entity) {
+        spec = spec.bind("id", entity.getId());
+        spec = entity.getTitle() != null ? spec.bind("title", entity.getTitle()) : spec.bindNull("title", String.class);
+        return entity.getDescription() != null
+            ? spec.bind("description", entity.getDescription())
+            : spec.bindNull("description", String.class);
     }
 }
 
 class PointSqlHelper {
 
+    static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList("id", "title", "description", "version"));
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, FIELDS);
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Collection<String> fields) {
         List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("title", table, columnPrefix + "_title"));
-        columns.add(Column.aliased("description", table, columnPrefix + "_description"));
+        if (fields.contains("id")) {
+            columns.add(Column.aliased("id", table, columnPrefix + "_id"));
+        }
+        if (fields.contains("title")) {
+            columns.add(Column.aliased("title", table, columnPrefix + "_title"));
+        }
+        if (fields.contains("description")) {
+            columns.add(Column.aliased("description", table, columnPrefix + "_description"));
+        }
+        if (fields.contains("version")) {
+            columns.add(Column.aliased("version", table, columnPrefix + "_version"));
+        }
 
         return columns;
     }
@@ -0,0 +1,274 @@
+package com.zero.repository;
+
+import com.zero.config.ApplicationProperties;
+import com.zero.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import javax.annotation.PreDestroy;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory filter of the logins and emails of the users, so that the lookups of unknown ones, mostly sent by bots, don't
+ * query the database.
+ * <p>
+ * The filter is a {@link BloomFilter} of the lowercase logins and emails, built when the application is ready, updated with
+ * each saved user, and rebuilt every {@code application.user-filter.rebuild-interval}: the deleted users and the previous
+ * logins and emails are only forgotten by the rebuilds, and until then cost a useless query. Until the filter is built, every
+ * lookup queries the database.
+ * <p>
+ * Only the users saved by this instance of the application are added between two rebuilds, so the filter is disabled by
+ * default, and must only be enabled, with {@code application.user-filter.enabled}, when a single instance uses the database.
+ * <p>
+ * The memory of the filter, its expected false positive rate, the lookups it answered and the ones it let through for
+ * nothing are recorded in the {@code user.filter.memory}, {@code user.filter.false.positive.rate}, {@code user.filter.absent}
+ * and {@code user.filter.false.positive} metrics.
+ */
+@Component
+public class UserExistenceFilter implements AfterSaveCallback<User> {
+
+    private static final long MIN_EXPECTED_INSERTIONS = 1_000;
+
+    // the users saved by a transaction which was not committed when a rebuild started are added again after it
+    private static final Duration REBUILD_GRACE = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(UserExistenceFilter.class);
+
+    private final DatabaseClient db;
+
+    private final ApplicationProperties.UserFilter properties;
+
+    private final Counter absentLookups;
+
+    private final Counter falsePositives;
+
+    private final Deque<RecentKey> recentKeys = new ConcurrentLinkedDeque<>();
+
+    private volatile BloomFilter current;
+
+    private volatile BloomFilter building;
+
+    private Disposable rebuilds;
+
+    public UserExistenceFilter(DatabaseClient db, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.db = db;
+        this.properties = applicationProperties.getUserFilter();
+        this.absentLookups =
+            Counter
+                .builder("user.filter.absent")
+                .description("Lookups of unknown logins or emails not sent to the database")
+                .register(meterRegistry);
+        this.falsePositives =
+            Counter
+                .builder("user.filter.false.positive")
+                .description("Lookups of unknown logins or emails sent to the database")
+                .register(meterRegistry);
+        Gauge
+            .builder("user.filter.memory", this, filter -> filter.current != null ? filter.current.sizeInBytes() : 0)
+            .description("Memory of the filter of the logins and emails")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge
+            .builder(
+                "user.filter.false.positive.rate",
+                this,
+                filter -> filter.current != null ? filter.current.expectedFalsePositiveRate() : 0
+            )
+            .description("Expected false positive rate of the filter of the logins and emails")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter, then rebuilds it periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuilds =
+            Flux
+                .interval(Duration.ZERO, properties.getRebuildInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild().onErrorResume(e -> Mono.fromRunnable(() -> log.warn("Could not build the user filter", e))))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilds != null) {
+            rebuilds.dispose();
+        }
+    }
+
+    /**
+     * Reads all the logins and emails into a new filter, which then replaces the current one.
+     *
+     * @return a {@link Mono} completing once the new filter is used.
+     */
+    public Mono<Void> rebuild() {
+        return db
+            .sql("SELECT COUNT(*) AS total FROM jhi_user")
+            .map(row -> row.get("total", Long.class))
+            .one()
+            .flatMap(
+                total -> {
+                    BloomFilter next = new BloomFilter(Math.max(MIN_EXPECTED_INSERTIONS, 2 * total), properties.getFalsePositiveRate());
+                    // the users saved during the scan are added to both filters
+                    building = next;
+                    return db
+                        .sql("SELECT login, email FROM jhi_user")
+                        .map(
+                            row -> {
+                                addTo(next, row.get("login", String.class), row.get("email", String.class));
+                                return Boolean.TRUE;
+                            }
+                        )
+                        .all()
+                        .then(
+                            Mono.fromRunnable(
+                                () -> {
+                                    recentKeys.forEach(recent -> next.add(recent.key));
+                                    current = next;
+                                    log.debug("Built the user filter of {} users", total);
+                                }
+                            )
+                        );
+                }
+            )
+            .doFinally(signal -> building = null)
+            .then();
+    }
+
+    @Override
+    public Publisher<User> onAfterSave(User user, OutboundRow outboundRow, SqlIdentifier table) {
+        add(user.getLogin(), user.getEmail());
+        return Mono.just(user);
+    }
+
+    private void add(String login, String email) {
+        long now = System.nanoTime();
+        for (String key : new String[] { loginKey(login), emailKey(email) }) {
+            if (key == null) {
+                continue;
+            }
+            recentKeys.addLast(new RecentKey(key, now));
+            BloomFilter filter = current;
+            if (filter != null) {
+                filter.add(key);
+            }
+            BloomFilter next = building;
+            if (next != null) {
+                next.add(key);
+            }
+        }
+        for (RecentKey recent = recentKeys.peekFirst(); recent != null; recent = recentKeys.peekFirst()) {
+            if (now - recent.time < REBUILD_GRACE.toNanos() || !recentKeys.remove(recent)) {
+                break;
+            }
+        }
+    }
+
+    private static void addTo(BloomFilter filter, String login, String email) {
+        String key = loginKey(login);
+        if (key != null) {
+            filter.add(key);
+        }
+        key = emailKey(email);
+        if (key != null) {
+            filter.add(key);
+        }
+    }
+
+    /**
+     * Looks up the user of a login, unless the login is known to be unused.
+     *
+     * @param login the login.
+     * @param lookup the lookup of the user in the database.
+     * @return the user, or an empty {@link Mono} if there is none.
+     */
+    Mono<User> filterLogin(String login, Mono<User> lookup) {
+        return filter(loginKey(login), lookup);
+    }
+
+    /**
+     * Looks up the user of an email, unless the email is known to be unused.
+     *
+     * @param email the email.
+     * @param lookup the lookup of the user in the database.
+     * @return the user, or an empty {@link Mono} if there is none.
+     */
+    Mono<User> filterEmail(String email, Mono<User> lookup) {
+        return filter(emailKey(email), lookup);
+    }
+
+    /**
+     * Looks up the users of a login or an email, unless both are known to be unused.
+     *
+     * @param login the login.
+     * @param email the email, or {@code null}.
+     * @param lookup the lookup of the users in the database.
+     * @return the users, if any.
+     */
+    Flux<User> filterLoginOrEmail(String login, String email, Flux<User> lookup) {
+        BloomFilter filter = current;
+        if (filter == null || !properties.isEnabled()) {
+            return lookup;
+        }
+        String loginKey = loginKey(login);
+        String emailKey = emailKey(email);
+        if ((loginKey == null || !filter.mightContain(loginKey)) && (emailKey == null || !filter.mightContain(emailKey))) {
+            absentLookups.increment();
+            return Flux.empty();
+        }
+        return lookup.switchIfEmpty(Mono.fromRunnable(falsePositives::increment));
+    }
+
+    private Mono<User> filter(String key, Mono<User> lookup) {
+        BloomFilter filter = current;
+        if (filter == null || key == null || !properties.isEnabled()) {
+            return lookup;
+        }
+        if (!filter.mightContain(key)) {
+            absentLookups.increment();
+            return Mono.empty();
+        }
+        return lookup.switchIfEmpty(Mono.fromRunnable(falsePositives::increment));
+    }
+
+    private static String loginKey(String login) {
+        return login != null ? "login:" + login.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String emailKey(String email) {
+        return email != null ? "email:" + email.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static class RecentKey {
+
+        private final String key;
+
+        private final long time;
+
+        RecentKey(String key, long time) {
+            this.key = key;
+            this.time = time;
+        }
+    }
+}
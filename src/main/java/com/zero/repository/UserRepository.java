@@ -3,17 +3,29 @@ package com.zero.repository;
 import static org.springframework.data.relational.core.query.Criteria.where;
 import static org.springframework.data.relational.core.query.Query.query;
 
+import com.zero.config.ApplicationProperties;
+import com.zero.config.GuardedCache;
 import com.zero.domain.Authority;
 import com.zero.domain.User;
+import com.zero.repository.rowmapper.UserRowMapper;
+import com.zero.service.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import org.apache.commons.beanutils.BeanComparator;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -32,10 +44,16 @@ import reactor.util.function.Tuples;
  */
 @Repository
 public interface UserRepository extends R2dbcRepository<User, Long>, UserRepositoryInternal {
+    String USERS_BY_LOGIN_CACHE = "usersByLogin";
+
+    String USERS_BY_EMAIL_CACHE = "usersByEmail";
+
     Mono<User> findOneByActivationKey(String activationKey);
 
     Flux<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(LocalDateTime dateTime);
 
+    Mono<Long> countByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(LocalDateTime dateTime);
+
     Mono<User> findOneByResetKey(String resetKey);
 
     Mono<User> findOneByEmailIgnoreCase(String email);
@@ -48,6 +66,9 @@ public interface UserRepository extends R2dbcRepository<User, Long>, UserReposit
 
     Mono<Long> count();
 
+    @Query("UPDATE jhi_user SET password_hash = :password WHERE id = :id")
+    Mono<Integer> updatePassword(Long id, String password);
+
     @Query("INSERT INTO jhi_user_authority VALUES(:userId, :authority)")
     Mono<Void> saveUserAuthority(Long userId, String authority);
 
@@ -63,58 +84,283 @@ interface DeleteExtended<T> {
 }
 
 interface UserRepositoryInternal extends DeleteExtended<User> {
+    Mono<User> findOneByLogin(String login);
+
+    Mono<User> findOneByEmailIgnoreCase(String email);
+
+    Flux<User> findAllByLoginOrEmailIgnoreCase(String login, String email);
+
     Mono<User> findOneWithAuthoritiesByLogin(String login);
 
     Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
     Flux<User> findAllWithAuthorities(Pageable pageable);
+
+    Flux<User> findAllBy(Pageable pageable, Collection<String> fields);
+
+    Mono<Integer> updateUserAuthorities(Long userId, Collection<String> authorities);
+
+    Flux<User> deleteNotActivatedUsers(LocalDateTime createdBefore, int limit);
 }
 
 class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
+    private static final Table entityTable = Table.aliased("jhi_user", EntityManager.ENTITY_ALIAS);
+
+    private static final List<Expression> columns = UserSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+
+    private static final EntityManager.LinkTable authorityLink = new EntityManager.LinkTable(
+        "jhi_user_authority",
+        "user_id",
+        "authority_name"
+    );
+
     private final DatabaseClient db;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
-    private final R2dbcConverter r2dbcConverter;
+    private final EntityManager entityManager;
+    private final UserRowMapper userMapper;
+    private final BatchLoader<String, User> userLoader;
+    private final String findOneWithAuthoritiesByLoginSql;
+    private final String findOneWithAuthoritiesByEmailSql;
+    private final GuardedCache usersByLoginCache;
+    private final GuardedCache usersByEmailCache;
+    private final UserExistenceFilter userExistenceFilter;
 
-    public UserRepositoryInternalImpl(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, R2dbcConverter r2dbcConverter) {
+    public UserRepositoryInternalImpl(
+        DatabaseClient db,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        EntityManager entityManager,
+        UserRowMapper userMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        CacheManager cacheManager,
+        UserExistenceFilter userExistenceFilter
+    ) {
         this.db = db;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
-        this.r2dbcConverter = r2dbcConverter;
+        this.entityManager = entityManager;
+        this.userMapper = userMapper;
+        this.findOneWithAuthoritiesByLoginSql = createSelectWithAuthorities(entityManager.isH2(), "login");
+        this.findOneWithAuthoritiesByEmailSql = createSelectWithAuthorities(entityManager.isH2(), "email");
+        this.usersByLoginCache = (GuardedCache) cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        this.usersByEmailCache = (GuardedCache) cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE);
+        this.userExistenceFilter = userExistenceFilter;
+        this.userLoader =
+            new BatchLoader<>(
+                "users",
+                logins -> r2dbcEntityTemplate.select(User.class).matching(query(where("login").in(logins))).all(),
+                User::getLogin,
+                UserRepositoryInternalImpl::copy,
+                applicationProperties,
+                meterRegistry
+            );
+    }
+
+    // the unknown logins and emails are answered by the filter, without any query
+    @Override
+    public Mono<User> findOneByLogin(String login) {
+        return userExistenceFilter.filterLogin(login, userLoader.load(login));
+    }
+
+    @Override
+    public Mono<User> findOneByEmailIgnoreCase(String email) {
+        return userExistenceFilter.filterEmail(
+            email,
+            r2dbcEntityTemplate.select(User.class).matching(query(where("email").is(email).ignoreCase(true))).one()
+        );
+    }
+
+    // the users using the login or the email, with a single query, only their id, login, email and activation being read
+    @Override
+    public Flux<User> findAllByLoginOrEmailIgnoreCase(String login, String email) {
+        String lowercaseLogin = login.toLowerCase(Locale.ROOT);
+        String lowercaseEmail = email != null ? email.toLowerCase(Locale.ROOT) : null;
+        return userExistenceFilter.filterLoginOrEmail(
+            lowercaseLogin,
+            lowercaseEmail,
+            findAllByLoginOrEmail(lowercaseLogin, lowercaseEmail)
+        );
+    }
+
+    // the lower(email) is backed by a functional index on PostgreSQL
+    private Flux<User> findAllByLoginOrEmail(String login, String email) {
+        String sql =
+            "SELECT id, login, email, activated FROM jhi_user WHERE login = :login" + (email != null ? " OR lower(email) = :email" : "");
+        DatabaseClient.GenericExecuteSpec spec = db.sql(sql).bind("login", login);
+        if (email != null) {
+            spec = spec.bind("email", email);
+        }
+        return spec
+            .map(
+                (row, metadata) -> {
+                    User user = new User();
+                    user.setId(row.get("id", Long.class));
+                    user.setLogin(row.get("login", String.class));
+                    user.setEmail(row.get("email", String.class));
+                    user.setActivated(Boolean.TRUE.equals(row.get("activated", Boolean.class)));
+                    return user;
+                }
+            )
+            .all();
     }
 
     @Override
     public Mono<User> findOneWithAuthoritiesByLogin(String login) {
-        return findOneWithAuthoritiesBy("login", login);
+        return userExistenceFilter.filterLogin(
+            login,
+            Mono.defer(() -> findOneWithAuthoritiesBy(usersByLoginCache, findOneWithAuthoritiesByLoginSql, login))
+        );
     }
 
     @Override
     public Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email) {
-        return findOneWithAuthoritiesBy("email", email.toLowerCase());
+        return userExistenceFilter.filterEmail(
+            email,
+            Mono.defer(() -> findOneWithAuthoritiesBy(usersByEmailCache, findOneWithAuthoritiesByEmailSql, email.toLowerCase()))
+        );
     }
 
+    // only the users of the page are read, sorted and paged by the database, then joined to their authorities
     @Override
     public Flux<User> findAllWithAuthorities(Pageable pageable) {
-        String property = pageable.getSort().stream().map(Sort.Order::getProperty).findFirst().get();
-        String direction = String.valueOf(pageable.getSort().stream().map(Sort.Order::getDirection).findFirst().get());
-        long page = pageable.getPageNumber();
-        long size = pageable.getPageSize();
+        // the id breaks the ties, so that the pages never overlap
+        Sort sort = pageable.getSort().getOrderFor("id") != null ? pageable.getSort() : pageable.getSort().and(Sort.by("id"));
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
 
-        return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id")
+        return entityManager
+            .createSelect(entityTable, columns, User.class, page, null)
+            .wrap(
+                users ->
+                    "SELECT e.*, ua.authority_name FROM (" +
+                    users +
+                    ") e LEFT JOIN jhi_user_authority ua ON ua.user_id = e." +
+                    EntityManager.ALIAS_PREFIX +
+                    "id ORDER BY " +
+                    renderAliasedOrderBy(sort)
+            )
+            .prepare(db)
             .map(
                 (row, metadata) ->
-                    Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
+                    Tuples.of(
+                        userMapper.apply(row, EntityManager.ENTITY_ALIAS),
+                        Optional.ofNullable(row.get("authority_name", String.class))
+                    )
             )
             .all()
-            .groupBy(t -> t.getT1().getLogin())
-            .flatMap(l -> l.collectList().map(t -> updateUserWithAuthorities(t.get(0).getT1(), t)))
-            .sort(
-                Sort.Direction.fromString(direction) == Sort.DEFAULT_DIRECTION
-                    ? new BeanComparator<>(property)
-                    : new BeanComparator<>(property).reversed()
+            .bufferUntilChanged(t -> t.getT1().getId())
+            .map(rows -> updateUserWithAuthorities(rows.get(0).getT1(), rows));
+    }
+
+    // the order of the page, on the aliased columns of the subquery
+    private static String renderAliasedOrderBy(Sort sort) {
+        return sort
+            .stream()
+            .map(
+                order ->
+                    EntityManager.ENTITY_ALIAS +
+                    "." +
+                    EntityManager.ALIAS_PREFIX +
+                    UserSqlHelper.COLUMNS_BY_FIELD.get(order.getProperty()) +
+                    (order.isAscending() ? " ASC" : " DESC")
             )
-            .skip(page * size)
-            .take(size);
+            .collect(Collectors.joining(", "));
+    }
+
+    // only the columns of the given fields are read, and the authorities only if they are one of the fields
+    @Override
+    public Flux<User> findAllBy(Pageable pageable, Collection<String> fields) {
+        boolean withAuthorities = fields.contains("authorities");
+        Set<String> readFields = new HashSet<>(fields);
+        if (withAuthorities) {
+            readFields.add("id");
+        }
+        List<Expression> selectedColumns = UserSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS, readFields);
+        Flux<User> users = entityManager
+            .createSelect(entityTable, selectedColumns, User.class, pageable, null)
+            .prepare(db)
+            .map((row, metadata) -> userMapper.apply(row, EntityManager.ENTITY_ALIAS, readFields))
+            .all();
+        if (!withAuthorities) {
+            return users;
+        }
+        // the authorities of the whole page are read with a single query
+        return users
+            .collectList()
+            .filter(page -> !page.isEmpty())
+            .flatMapMany(
+                page ->
+                    db
+                        .sql("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:userIds)")
+                        .bind("userIds", page.stream().map(User::getId).collect(Collectors.toList()))
+                        .map(row -> Tuples.of(row.get("user_id", Long.class), row.get("authority_name", String.class)))
+                        .all()
+                        .collectMultimap(Tuple2::getT1, Tuple2::getT2)
+                        .flatMapIterable(
+                            authoritiesByUser -> {
+                                for (User user : page) {
+                                    user.setAuthorities(
+                                        authoritiesByUser
+                                            .getOrDefault(user.getId(), Collections.emptyList())
+                                            .stream()
+                                            .map(
+                                                name -> {
+                                                    Authority authority = new Authority();
+                                                    authority.setName(name);
+                                                    return authority;
+                                                }
+                                            )
+                                            .collect(Collectors.toSet())
+                                    );
+                                }
+                                return page;
+                            }
+                        )
+            );
+    }
+
+    // only the added and the removed authorities are written
+    @Override
+    public Mono<Integer> updateUserAuthorities(Long userId, Collection<String> authorities) {
+        return entityManager.updateLinkTable(authorityLink, userId, authorities.stream());
+    }
+
+    // must run in a transaction, which holds the selected users until they are deleted
+    @Override
+    public Flux<User> deleteNotActivatedUsers(LocalDateTime createdBefore, int limit) {
+        String select =
+            "SELECT id, login, email FROM jhi_user" +
+            " WHERE activated = false AND activation_key IS NOT NULL AND created_date < :createdBefore" +
+            " ORDER BY id LIMIT :limit" +
+            (entityManager.isH2() ? "" : " FOR UPDATE");
+        return db
+            .sql(select)
+            .bind("createdBefore", createdBefore)
+            .bind("limit", limit)
+            .map(
+                (row, metadata) -> {
+                    User user = new User();
+                    user.setId(row.get("id", Long.class));
+                    user.setLogin(row.get("login", String.class));
+                    user.setEmail(row.get("email", String.class));
+                    return user;
+                }
+            )
+            .all()
+            .collectList()
+            .flatMapMany(
+                users -> {
+                    if (users.isEmpty()) {
+                        return Flux.empty();
+                    }
+                    List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+                    return db
+                        .sql("DELETE FROM jhi_user_authority WHERE user_id IN (:ids)")
+                        .bind("ids", ids)
+                        .then()
+                        .then(db.sql("DELETE FROM jhi_user WHERE id IN (:ids)").bind("ids", ids).then())
+                        .thenMany(Flux.fromIterable(users));
+                }
+            );
     }
 
     @Override
@@ -126,18 +372,60 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
             .then(r2dbcEntityTemplate.delete(User.class).matching(query(where("id").is(user.getId()))).all().then());
     }
 
-    private Mono<User> findOneWithAuthoritiesBy(String fieldName, Object fieldValue) {
+    // the cached users are evicted by the UserService, and never handed out, so that a caller can't change them; a user read
+    // before an eviction is not cached, as it may be the user as it was before the change
+    private Mono<User> findOneWithAuthoritiesBy(GuardedCache cache, String sql, String value) {
+        User cached = cache.get(value, User.class);
+        if (cached != null) {
+            return Mono.just(copy(cached));
+        }
+        long stamp = cache.stamp(value);
         return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id WHERE u." + fieldName + " = :" + fieldName)
-            .bind(fieldName, fieldValue)
-            .map(
-                (row, metadata) ->
-                    Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
-            )
-            .all()
-            .collectList()
-            .filter(l -> !l.isEmpty())
-            .map(l -> updateUserWithAuthorities(l.get(0).getT1(), l));
+            .sql(sql)
+            .bind("value", value)
+            .map((row, metadata) -> userMapper.applyWithAuthorities(row, EntityManager.ENTITY_ALIAS))
+            .one()
+            .doOnNext(user -> cache.putIfNotEvicted(value, copy(user), stamp, (previous, loaded) -> loaded));
+    }
+
+    // a single row, whose authorities are aggregated by a subquery
+    private static String createSelectWithAuthorities(boolean h2, String column) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (String userColumn : UserSqlHelper.COLUMNS_BY_FIELD.values()) {
+            sql.append("e.").append(userColumn).append(" AS ").append(EntityManager.ALIAS_PREFIX).append(userColumn).append(", ");
+        }
+        return sql
+            .append("(SELECT ")
+            .append(h2 ? "GROUP_CONCAT(ua.authority_name SEPARATOR ',')" : "array_agg(ua.authority_name)")
+            .append(" FROM jhi_user_authority ua WHERE ua.user_id = e.id) AS ")
+            .append(EntityManager.ALIAS_PREFIX)
+            .append("authorities FROM jhi_user e WHERE e.")
+            .append(column)
+            .append(" = :value")
+            .toString();
+    }
+
+    // the users read by a batch are shared by its callers, which may change them, and so are the cached ones
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setLogin(user.getLogin());
+        copy.setPassword(user.getPassword());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setEmail(user.getEmail());
+        copy.setActivated(user.isActivated());
+        copy.setLangKey(user.getLangKey());
+        copy.setImageUrl(user.getImageUrl());
+        copy.setActivationKey(user.getActivationKey());
+        copy.setResetKey(user.getResetKey());
+        copy.setResetDate(user.getResetDate());
+        copy.setCreatedBy(user.getCreatedBy());
+        copy.setCreatedDate(user.getCreatedDate());
+        copy.setLastModifiedBy(user.getLastModifiedBy());
+        copy.setLastModifiedDate(user.getLastModifiedDate());
+        copy.setAuthorities(new HashSet<>(user.getAuthorities()));
+        return copy;
     }
 
     private User updateUserWithAuthorities(User user, List<Tuple2<User, Optional<String>>> tuples) {
@@ -161,20 +449,43 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
 class UserSqlHelper {
 
+    // the columns of the properties of the user, in the order of the select list
+    static final Map<String, String> COLUMNS_BY_FIELD;
+
+    static {
+        Map<String, String> columnsByField = new LinkedHashMap<>();
+        columnsByField.put("id", "id");
+        columnsByField.put("login", "login");
+        columnsByField.put("password", "password_hash");
+        columnsByField.put("firstName", "first_name");
+        columnsByField.put("lastName", "last_name");
+        columnsByField.put("email", "email");
+        columnsByField.put("activated", "activated");
+        columnsByField.put("langKey", "lang_key");
+        columnsByField.put("imageUrl", "image_url");
+        columnsByField.put("activationKey", "activation_key");
+        columnsByField.put("resetKey", "reset_key");
+        columnsByField.put("resetDate", "reset_date");
+        columnsByField.put("createdBy", "created_by");
+        columnsByField.put("createdDate", "created_date");
+        columnsByField.put("lastModifiedBy", "last_modified_by");
+        columnsByField.put("lastModifiedDate", "last_modified_date");
+        COLUMNS_BY_FIELD = Collections.unmodifiableMap(columnsByField);
+    }
+
     static List<Expression> getColumns(Table table, String columnPrefix) {
+        return getColumns(table, columnPrefix, COLUMNS_BY_FIELD.keySet());
+    }
+
+    static List<Expression> getColumns(Table table, String columnPrefix, Collection<String> fields) {
         List<Expression> columns = new ArrayList<>();
-        columns.add(Column.aliased("id", table, columnPrefix + "_id"));
-        columns.add(Column.aliased("login", table, columnPrefix + "_login"));
-        columns.add(Column.aliased("password_hash", table, columnPrefix + "_password"));
-        columns.add(Column.aliased("first_name", table, columnPrefix + "_first_name"));
-        columns.add(Column.aliased("last_name", table, columnPrefix + "_last_name"));
-        columns.add(Column.aliased("email", table, columnPrefix + "_email"));
-        columns.add(Column.aliased("activated", table, columnPrefix + "_activated"));
-        columns.add(Column.aliased("lang_key", table, columnPrefix + "_lang_key"));
-        columns.add(Column.aliased("image_url", table, columnPrefix + "_image_url"));
-        columns.add(Column.aliased("activation_key", table, columnPrefix + "_activation_key"));
-        columns.add(Column.aliased("reset_key", table, columnPrefix + "_reset_key"));
-        columns.add(Column.aliased("reset_date", table, columnPrefix + "_reset_date"));
+        COLUMNS_BY_FIELD.forEach(
+            (field, column) -> {
+                if (fields.contains(field)) {
+                    columns.add(Column.aliased(column, table, columnPrefix + "_" + column));
+                }
+            }
+        );
         return columns;
     }
 }
@@ -3,6 +3,7 @@ package com.zero.repository.rowmapper;
 import com.zero.domain.Point;
 import com.zero.service.ColumnConverter;
 import io.r2dbc.spi.Row;
+import java.util.Collection;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +29,28 @@ public class PointRowMapper implements BiFunction<Row, String, Point> {
         entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
         entity.setTitle(converter.fromRow(row, prefix + "_title", String.class));
         entity.setDescription(converter.fromRow(row, prefix + "_description", String.class));
+        entity.setVersion(converter.fromRow(row, prefix + "_version", Long.class));
+        return entity;
+    }
+
+    /**
+     * Take a {@link Row}, a column prefix and the names of the selected fields, and extract those fields.
+     * @return the {@link Point} stored in the database, with null values for the fields which were not selected.
+     */
+    public Point apply(Row row, String prefix, Collection<String> fields) {
+        Point entity = new Point();
+        if (fields.contains("id")) {
+            entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
+        }
+        if (fields.contains("title")) {
+            entity.setTitle(converter.fromRow(row, prefix + "_title", String.class));
+        }
+        if (fields.contains("description")) {
+            entity.setDescription(converter.fromRow(row, prefix + "_description", String.class));
+        }
+        if (fields.contains("version")) {
+            entity.setVersion(converter.fromRow(row, prefix + "_version", Long.class));
+        }
         return entity;
     }
 }
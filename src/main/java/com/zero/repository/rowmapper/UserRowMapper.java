@@ -1,10 +1,15 @@
 package com.zero.repository.rowmapper;
 
+import com.zero.domain.Authority;
 import com.zero.domain.User;
 import com.zero.service.ColumnConverter;
 import io.r2dbc.spi.Row;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
 
 /**
@@ -28,7 +33,7 @@ public class UserRowMapper implements BiFunction<Row, String, User> {
         User entity = new User();
         entity.setId(row.get(prefix + "_id", Long.class));
         entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
-        entity.setPassword(converter.fromRow(row, prefix + "_password", String.class));
+        entity.setPassword(converter.fromRow(row, prefix + "_password_hash", String.class));
         entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
         entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
         entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
@@ -38,6 +43,98 @@ public class UserRowMapper implements BiFunction<Row, String, User> {
         entity.setActivationKey(converter.fromRow(row, prefix + "_activation_key", String.class));
         entity.setResetKey(converter.fromRow(row, prefix + "_reset_key", String.class));
         entity.setResetDate(converter.fromRow(row, prefix + "_reset_date", Instant.class));
+        entity.setCreatedBy(converter.fromRow(row, prefix + "_created_by", String.class));
+        entity.setCreatedDate(converter.fromRow(row, prefix + "_created_date", Instant.class));
+        entity.setLastModifiedBy(converter.fromRow(row, prefix + "_last_modified_by", String.class));
+        entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
+        return entity;
+    }
+
+    /**
+     * Take a {@link Row} and a column prefix, and extract all the fields and the authorities, aggregated in the
+     * {@code <prefix>_authorities} column as an array or as a comma separated list.
+     * @return the {@link User} stored in the database, with its authorities.
+     */
+    public User applyWithAuthorities(Row row, String prefix) {
+        User entity = apply(row, prefix);
+        Object authorities = row.get(prefix + "_authorities");
+        Stream<?> names = Stream.empty();
+        if (authorities instanceof Object[]) {
+            names = Arrays.stream((Object[]) authorities);
+        } else if (authorities instanceof String) {
+            names = Arrays.stream(((String) authorities).split(","));
+        }
+        entity.setAuthorities(
+            names
+                .map(
+                    name -> {
+                        Authority authority = new Authority();
+                        authority.setName(name.toString());
+                        return authority;
+                    }
+                )
+                .collect(Collectors.toSet())
+        );
+        return entity;
+    }
+
+    /**
+     * Take a {@link Row}, a column prefix and the names of the selected fields, and extract those fields.
+     * @return the {@link User} stored in the database, with null values for the fields which were not selected.
+     */
+    public User apply(Row row, String prefix, Collection<String> fields) {
+        User entity = new User();
+        if (fields.contains("id")) {
+            entity.setId(row.get(prefix + "_id", Long.class));
+        }
+        if (fields.contains("login")) {
+            entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
+        }
+        if (fields.contains("password")) {
+            entity.setPassword(converter.fromRow(row, prefix + "_password_hash", String.class));
+        }
+        if (fields.contains("firstName")) {
+            entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
+        }
+        if (fields.contains("lastName")) {
+            entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
+        }
+        if (fields.contains("email")) {
+            entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
+        }
+        if (fields.contains("activated")) {
+            entity.setActivated(Boolean.TRUE.equals(converter.fromRow(row, prefix + "_activated", Boolean.class)));
+        }
+        if (fields.contains("langKey")) {
+            entity.setLangKey(converter.fromRow(row, prefix + "_lang_key", String.class));
+        }
+        if (fields.contains("imageUrl")) {
+            entity.setImageUrl(converter.fromRow(row, prefix + "_image_url", String.class));
+        }
+        if (fields.contains("activationKey")) {
+            entity.setActivationKey(converter.fromRow(row, prefix + "_activation_key", String.class));
+        }
+        if (fields.contains("resetKey")) {
+            entity.setResetKey(converter.fromRow(row, prefix + "_reset_key", String.class));
+        }
+        if (fields.contains("resetDate")) {
+            entity.setResetDate(converter.fromRow(row, prefix + "_reset_date", Instant.class));
+        }
+        // the auditing dates default to now, so the ones which are not selected are cleared
+        entity.setCreatedDate(null);
+        entity.setLastModifiedDate(null);
+        if (fields.contains("createdBy")) {
+            entity.setCreatedBy(converter.fromRow(row, prefix + "_created_by", String.class));
+        }
+        if (fields.contains("createdDate")) {
+            entity.setCreatedDate(converter.fromRow(row, prefix + "_created_date", Instant.class));
+        }
+        if (fields.contains("lastModifiedBy")) {
+            entity.setLastModifiedBy(converter.fromRow(row, prefix + "_last_modified_by", String.class));
+        }
+        if (fields.contains("lastModifiedDate")) {
+            entity.setLastModifiedDate(converter.fromRow(row, prefix + "_last_modified_date", Instant.class));
+        }
         return entity;
     }
 }
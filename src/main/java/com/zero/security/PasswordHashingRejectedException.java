@@ -0,0 +1,14 @@
+package com.zero.security;
+
+/**
+ * This exception is thrown when a password can't be hashed nor checked, as the queue of the {@link PasswordHashingScheduler}
+ * is full.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(Throwable cause) {
+        super("Too many passwords are being hashed", cause);
+    }
+}
@@ -0,0 +1,125 @@
+package com.zero.security;
+
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The scheduler hashing and checking the passwords.
+ * <p>
+ * BCrypt is CPU bound, so the passwords are hashed by {@code application.password-hashing.threads} threads, the other tasks
+ * waiting in a queue of {@code application.password-hashing.queue-capacity}. When the queue is full the hashing fails at once
+ * with a {@link PasswordHashingRejectedException}, instead of delaying the other requests: a burst of logins can't take the
+ * threads of the event loop nor the ones of {@link Schedulers#boundedElastic()}.
+ * <p>
+ * Only the hashing runs on these threads: its result is published on {@link Schedulers#parallel()}, so that the database
+ * calls which follow it neither take a hashing thread nor count in the duration of the hashing.
+ * <p>
+ * The number of waiting tasks, the time they waited and the time they ran are recorded in the {@code password.hashing.queue},
+ * {@code password.hashing.wait} and {@code password.hashing.duration} metrics.
+ */
+@Component
+public class PasswordHashingScheduler {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Scheduler scheduler;
+
+    public PasswordHashingScheduler(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.PasswordHashing properties = applicationProperties.getPasswordHashing();
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        Timer waitTimes = Timer
+            .builder("password.hashing.wait")
+            .description("Time spent by a password hashing waiting for a thread")
+            .register(meterRegistry);
+        Timer hashTimes = Timer.builder("password.hashing.duration").description("Time spent hashing a password").register(meterRegistry);
+        this.executor = new TimedThreadPoolExecutor(threads, properties.getQueueCapacity(), waitTimes, hashTimes);
+        this.scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+        Gauge
+            .builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Number of password hashings waiting for a thread")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return the scheduler, to publish on before hashing or checking a password, where {@link #hash(Callable)} can't be used.
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Hashes or checks a password on the scheduler.
+     *
+     * @param hashing the hashing, or the check.
+     * @param <T> the type of the result.
+     * @return the result of the hashing, published on {@link Schedulers#parallel()}, or a
+     * {@link PasswordHashingRejectedException} if the queue is full.
+     */
+    public <T> Mono<T> hash(Callable<T> hashing) {
+        return Mono
+            .fromCallable(hashing)
+            .subscribeOn(scheduler)
+            .publishOn(Schedulers.parallel())
+            .onErrorMap(RejectedExecutionException.class, PasswordHashingRejectedException::new);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private static class TimedThreadPoolExecutor extends ThreadPoolExecutor {
+
+        private final Timer waitTimes;
+
+        private final Timer hashTimes;
+
+        TimedThreadPoolExecutor(int threads, int queueCapacity, Timer waitTimes, Timer hashTimes) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory());
+            this.waitTimes = waitTimes;
+            this.hashTimes = hashTimes;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            long queued = System.nanoTime();
+            super.execute(
+                () -> {
+                    long start = System.nanoTime();
+                    waitTimes.record(start - queued, TimeUnit.NANOSECONDS);
+                    try {
+                        task.run();
+                    } finally {
+                        hashTimes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            );
+        }
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
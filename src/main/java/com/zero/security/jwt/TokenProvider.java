@@ -1,12 +1,18 @@
 package com.zero.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +32,10 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
+    static final int MAX_CACHED_AUTHENTICATIONS = 10_000;
+
+    static final int MAX_INTERNED_AUTHORITIES = 100;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -34,6 +44,15 @@ public class TokenProvider {
 
     private final long tokenValidityInMillisecondsForRememberMe;
 
+    private final Cache<String, CachedAuthentication> authentications = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_CACHED_AUTHENTICATIONS)
+        .expireAfter(new TokenExpiry())
+        .build();
+
+    // the authorities of the tokens are only the ones signed by this application, so they are few
+    private final Cache<String, GrantedAuthority> internedAuthorities = Caffeine.newBuilder().maximumSize(MAX_INTERNED_AUTHORITIES).build();
+
     public TokenProvider(JHipsterProperties jHipsterProperties) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
@@ -75,18 +94,62 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Gets the authentication of a valid token.
+     * <p>
+     * The token is parsed and verified the first time it is seen, then its principal and its authorities are kept until the
+     * token expires, or until the {@link #MAX_CACHED_AUTHENTICATIONS} least recently used tokens are kept. The entries are
+     * looked up by the SHA-256 digest of the token, and hold no credentials, so that the tokens themselves are not held in
+     * memory: each call returns a new authentication, whose credentials are the given token.
+     *
+     * @param token the token.
+     * @return the authentication, or an empty {@link Optional} if the token is not valid.
+     */
+    public Optional<Authentication> getValidAuthentication(String token) {
+        String digest = digest(token);
+        CachedAuthentication cached = authentications.getIfPresent(digest);
+        if (cached != null) {
+            return Optional.of(new UsernamePasswordAuthenticationToken(cached.principal, token, cached.principal.getAuthorities()));
+        }
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.info("Invalid JWT token.");
+            log.trace("Invalid JWT token trace.", e);
+            return Optional.empty();
+        }
+        User principal = createPrincipal(claims);
+        // a token without expiration is not kept, as nothing would remove it
+        if (claims.getExpiration() != null) {
+            authentications.put(digest, new CachedAuthentication(principal, claims.getExpiration().getTime()));
+        }
+        return Optional.of(new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities()));
+    }
+
     public Authentication getAuthentication(String token) {
         Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        User principal = createPrincipal(claims);
+        return new UsernamePasswordAuthenticationToken(principal, token, principal.getAuthorities());
+    }
 
+    private User createPrincipal(Claims claims) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
-            .map(SimpleGrantedAuthority::new)
+            .map(authority -> internedAuthorities.get(authority, SimpleGrantedAuthority::new))
             .collect(Collectors.toList());
 
-        User principal = new User(claims.getSubject(), "", authorities);
+        return new User(claims.getSubject(), "", authorities);
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
     }
 
     public boolean validateToken(String authToken) {
@@ -99,4 +162,35 @@ public class TokenProvider {
         }
         return false;
     }
+
+    private static class CachedAuthentication {
+
+        private final User principal;
+
+        private final long expiration;
+
+        CachedAuthentication(User principal, long expiration) {
+            this.principal = principal;
+            this.expiration = expiration;
+        }
+    }
+
+    // each entry expires with its token
+    private static class TokenExpiry implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiration - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,139 @@
+package com.zero.service;
+
+import com.zero.domain.Authority;
+import com.zero.repository.AuthorityRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class holding the authorities in memory.
+ * <p>
+ * The authorities are only changed by the database migrations, so they are read once, when the application is ready or on
+ * their first use, and then served from an immutable snapshot: checking the authorities of a user doesn't run any query.
+ * Code changing the {@code jhi_authority} table must call {@link #refresh()}.
+ */
+@Service
+public class AuthorityRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private volatile Mono<Snapshot> snapshot;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository) {
+        this.authorityRepository = authorityRepository;
+        this.snapshot = load();
+    }
+
+    /**
+     * Loads the authorities once the application is ready, so that the first request doesn't wait for them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        snapshot.subscribe(
+            loaded -> log.debug("Loaded {} authorities", loaded.getNames().size()),
+            e -> log.warn("Could not load the authorities: {}", e.getMessage())
+        );
+    }
+
+    /**
+     * Reads the authorities again on their next use.
+     */
+    public void refresh() {
+        snapshot = load();
+    }
+
+    // a failed read is not kept, so that the next use tries again
+    private Mono<Snapshot> load() {
+        return authorityRepository
+            .findAll()
+            .map(Authority::getName)
+            .collectSortedList()
+            .map(Snapshot::new)
+            .cache(loaded -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Gets the current authorities.
+     *
+     * @return the snapshot of the authorities.
+     */
+    public Mono<Snapshot> getSnapshot() {
+        return Mono.defer(() -> snapshot);
+    }
+
+    /**
+     * Gets the authorities of some names, ignoring the names which aren't authorities.
+     *
+     * @param names the names of the authorities.
+     * @return the authorities, in the order of the names.
+     */
+    public Mono<Set<Authority>> resolve(Collection<String> names) {
+        return getSnapshot().map(current -> current.resolve(names));
+    }
+
+    /**
+     * The authorities at some point in time.
+     */
+    public static final class Snapshot {
+
+        private final List<String> names;
+
+        private final Set<String> lookup;
+
+        private final String eTag;
+
+        Snapshot(List<String> names) {
+            this.names = Collections.unmodifiableList(names);
+            this.lookup = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+            this.eTag = "\"" + DigestUtils.md5DigestAsHex(String.join(",", names).getBytes(StandardCharsets.UTF_8)) + "\"";
+        }
+
+        /**
+         * @return the names of the authorities, sorted.
+         */
+        public List<String> getNames() {
+            return names;
+        }
+
+        /**
+         * @return the ETag of the names of the authorities.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        public boolean contains(String name) {
+            return lookup.contains(name);
+        }
+
+        // the authorities are mutable, so each caller gets its own ones
+        Set<Authority> resolve(Collection<String> requested) {
+            return requested
+                .stream()
+                .filter(lookup::contains)
+                .map(
+                    name -> {
+                        Authority authority = new Authority();
+                        authority.setName(name);
+                        return authority;
+                    }
+                )
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+    }
+}
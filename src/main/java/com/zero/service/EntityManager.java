@@ -1,33 +1,40 @@
 package com.zero.service;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
-import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Conditions;
-import org.springframework.data.relational.core.sql.OrderByField;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.sql.Aliased;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
-import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
-import org.springframework.r2dbc.core.Parameter;
+import org.springframework.data.util.Pair;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -39,6 +46,13 @@ public class EntityManager {
 
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
+    public static final String KEYSET_VALUE_PARAMETER = "keysetValue";
+    public static final String KEYSET_ID_PARAMETER = "keysetId";
+    public static final String LIMIT_PARAMETER = "limit";
+    public static final String OFFSET_PARAMETER = "offset";
+    public static final String SQL_TEMPLATES_CACHE = "sqlTemplates";
+
+    private static final String CRITERIA_PARAMETER_PREFIX = "p";
 
     public static class LinkTable {
 
@@ -56,90 +70,355 @@ public class EntityManager {
         }
     }
 
+    /**
+     * A select statement, with the values of its named parameters.
+     */
+    public static class BoundSelect {
+
+        private final String sql;
+        private final Map<String, Object> bindings;
+
+        BoundSelect(String sql, Map<String, Object> bindings) {
+            this.sql = sql;
+            this.bindings = Collections.unmodifiableMap(bindings);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Map<String, Object> getBindings() {
+            return bindings;
+        }
+
+        /**
+         * Creates the statement with the given client, and binds its parameters.
+         * @param db the database client.
+         * @return the statement, ready to be executed.
+         */
+        public DatabaseClient.GenericExecuteSpec prepare(DatabaseClient db) {
+            DatabaseClient.GenericExecuteSpec spec = db.sql(sql);
+            for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+                spec = spec.bind(binding.getKey(), binding.getValue());
+            }
+            return spec;
+        }
+
+        /**
+         * Wraps the statement into another one, for instance to join the rows it reads with another table.
+         * @param wrapper the creator of the outer statement from this one.
+         * @return the outer statement, with the same parameters.
+         */
+        public BoundSelect wrap(UnaryOperator<String> wrapper) {
+            return new BoundSelect(wrapper.apply(sql), bindings);
+        }
+
+        @Override
+        public String toString() {
+            return "BoundSelect{sql='" + sql + "', bindings=" + bindings + "}";
+        }
+    }
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final R2dbcDialect dialect;
+    private final Cache sqlTemplates;
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcDialect dialect,
+        CacheManager cacheManager
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.dialect = dialect;
+        this.sqlTemplates = cacheManager.getCache(SQL_TEMPLATES_CACHE);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
-     * @param entityType the entity type which holds the table name.
+     * Tells if the database is H2, which doesn't support some of the PostgreSQL statements.
+     * @return true if the database is H2.
+     */
+    public boolean isH2() {
+        return dialect instanceof H2Dialect;
+    }
+
+    /**
+     * Creates a parameterized SQL select statement from the given columns, pagination parameters and criteria.
+     * <p>
+     * The values of the criteria and of the pagination are bound as parameters, so the statement text only depends on the
+     * entity, the columns, the sort and the shape of the criteria: it is rendered once and kept in the
+     * {@link #SQL_TEMPLATES_CACHE} cache, keyed by the names of the table and of the columns and by the rendered condition and
+     * order. The same text for the same query is also what lets a driver with a statement cache reuse its prepared statement,
+     * but the metrics of the cache only count the renderings saved.
+     * @param table the table of the entity, aliased with {@link #ENTITY_ALIAS}.
+     * @param columns the selected columns.
+     * @param entityType the entity type which maps the properties of the criteria and of the sort to columns.
      * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param criteria the criteria, or null if every row is selected.
+     * @return the select statement with its parameters.
+     * @throws IllegalArgumentException if a sorted property is not a property of the entity.
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
+    public BoundSelect createSelect(Table table, List<Expression> columns, Class<?> entityType, Pageable pageable, Criteria criteria) {
+        RelationalPersistentEntity<?> entity = getRequiredPersistentEntity(entityType);
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        String where = criteria != null ? renderCriteria(criteria, entity, bindings) : null;
+        String orderBy = null;
         if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+            orderBy = renderOrderBy(pageable.getSort(), entity);
+            bindings.put(LIMIT_PARAMETER, pageable.getPageSize());
+            bindings.put(OFFSET_PARAMETER, pageable.getOffset());
+        }
+
+        String finalWhere = where;
+        String finalOrderBy = orderBy;
+        Supplier<String> renderer = () -> {
+            StringBuilder select = new StringBuilder(createSelect(Select.builder().select(columns).from(table).build()));
+            if (finalWhere != null) {
+                select.append(" WHERE ").append(finalWhere);
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+            if (finalOrderBy != null) {
+                select.append(" ORDER BY ").append(finalOrderBy);
             }
-        }
+            if (pageable != null) {
+                select.append(" LIMIT :").append(LIMIT_PARAMETER).append(" OFFSET :").append(OFFSET_PARAMETER);
+            }
+            return select.toString();
+        };
+        // the condition and the order are rendered by this class, from the names of the columns, so they identify the query
+        String selectKey = selectKey(table, columns);
+        String key = selectKey != null
+            ? entityType.getName() + '|' + selectKey + '|' + where + '|' + orderBy + '|' + (pageable != null)
+            : null;
+        return new BoundSelect(template(key, renderer), bindings);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates an SQL select statement which reads the rows following a keyset position, so that reading a page costs the same
+     * whatever its depth, as long as the sorted column and the id are indexed.
+     * <p>
+     * The statement text is cached like the ones of {@link #createSelect(Table, List, Class, Pageable, Criteria)}.
+     * @param table the table of the entity, aliased with {@link #ENTITY_ALIAS}.
+     * @param columns the selected columns.
      * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param order the sort order, the id of the entity is always used as a tie-breaker.
+     * @param afterValue the value of the sorted property at the position, ignored if the rows are sorted by id.
+     * @param afterId the id of the entity at the position, or null for the first page.
+     * @param limit the maximum number of rows to read.
+     * @return the select statement with its parameters.
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+    public BoundSelect createKeysetSelect(
+        Table table,
+        List<Expression> columns,
+        Class<?> entityType,
+        Sort.Order order,
+        Object afterValue,
+        Long afterId,
+        int limit
+    ) {
+        RelationalPersistentEntity<?> entity = getRequiredPersistentEntity(entityType);
+        String idColumn = ENTITY_ALIAS + "." + entity.getRequiredIdProperty().getColumnName().getReference();
+        String sortColumn = ENTITY_ALIAS + "." + entity.getRequiredPersistentProperty(order.getProperty()).getColumnName().getReference();
+        boolean sortedById = sortColumn.equals(idColumn);
+
+        Map<String, Object> bindings = new LinkedHashMap<>();
+        if (afterId != null) {
+            bindings.put(KEYSET_ID_PARAMETER, afterId);
+            if (!sortedById) {
+                bindings.put(KEYSET_VALUE_PARAMETER, afterValue);
+            }
+        }
+        bindings.put(LIMIT_PARAMETER, limit);
+
+        String selectKey = selectKey(table, columns);
+        String key = selectKey != null
+            ? "keyset|" +
+            entityType.getName() +
+            '|' +
+            selectKey +
+            '|' +
+            sortColumn +
+            (order.isAscending() ? " ASC" : " DESC") +
+            '|' +
+            (afterId != null)
+            : null;
+        String sql = template(
+            key,
+            () -> {
+                String comparator = order.isAscending() ? " > " : " < ";
+                String direction = order.isAscending() ? " ASC" : " DESC";
+                StringBuilder select = new StringBuilder(createSelect(Select.builder().select(columns).from(table).build()));
+                if (afterId != null) {
+                    select.append(" WHERE ");
+                    if (sortedById) {
+                        select.append(idColumn).append(comparator).append(':').append(KEYSET_ID_PARAMETER);
+                    } else {
+                        select
+                            .append('(')
+                            .append(sortColumn)
+                            .append(", ")
+                            .append(idColumn)
+                            .append(')')
+                            .append(comparator)
+                            .append("(:")
+                            .append(KEYSET_VALUE_PARAMETER)
+                            .append(", :")
+                            .append(KEYSET_ID_PARAMETER)
+                            .append(')');
+                    }
+                }
+                select.append(" ORDER BY ");
+                if (!sortedById) {
+                    select.append(sortColumn).append(direction).append(", ");
+                }
+                select.append(idColumn).append(direction).append(" LIMIT :").append(LIMIT_PARAMETER);
+                return select.toString();
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+        );
+        return new BoundSelect(sql, bindings);
+    }
+
+    // the statement is rendered once per key, or each time if there is no key
+    private String template(String key, Supplier<String> renderer) {
+        return key != null ? sqlTemplates.get(key, renderer::get) : renderer.get();
+    }
+
+    /**
+     * The key of the select list of a statement, from the names of the tables, of the columns and of their aliases, which are
+     * all the select list depends on; null if an expression is not a column, as the key of its rendering is not known.
+     */
+    private static String selectKey(Table table, List<Expression> columns) {
+        StringBuilder key = new StringBuilder(table.getName().getReference()).append(' ').append(table.getReferenceName().getReference());
+        for (Expression expression : columns) {
+            if (!(expression instanceof Column)) {
+                return null;
             }
+            Column column = (Column) expression;
+            key.append(',').append(column.getTable().getReferenceName().getReference()).append('.').append(column.getName().getReference());
+            if (column instanceof Aliased) {
+                key.append(' ').append(((Aliased) column).getAlias().getReference());
+            }
+        }
+        return key.toString();
+    }
+
+    private String renderOrderBy(Sort sort, RelationalPersistentEntity<?> entity) {
+        if (sort == null || sort.isUnsorted()) {
+            return null;
+        }
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            RelationalPersistentProperty property = entity.getPersistentProperty(order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("Unknown sort property " + order.getProperty() + " of " + entity.getName());
+            }
+            if (orderBy.length() > 0) {
+                orderBy.append(", ");
+            }
+            orderBy
+                .append(ENTITY_ALIAS)
+                .append('.')
+                .append(property.getColumnName().getReference())
+                .append(order.isAscending() ? " ASC" : " DESC");
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Renders the criteria as an SQL condition on the columns of the {@link #ENTITY_ALIAS} table, the values being replaced
+     * by named parameters, in the same way as the Spring Data query mapper combines them.
+     */
+    private String renderCriteria(CriteriaDefinition criteria, RelationalPersistentEntity<?> entity, Map<String, Object> bindings) {
+        // the criteria are chained from the last one to the first one
+        Deque<CriteriaDefinition> chain = new ArrayDeque<>();
+        for (CriteriaDefinition current = criteria; current != null; current = current.getPrevious()) {
+            chain.push(current);
+        }
+        String rendered = null;
+        for (CriteriaDefinition criterion : chain) {
+            rendered = combine(rendered, criterion.getCombinator(), renderCriterion(criterion, entity, bindings));
         }
+        return rendered;
     }
 
-    private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
-        if (sortParameter != null && sortParameter.isSorted()) {
-            RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
-            if (entity != null) {
-                Sort sort = updateMapper.getMappedObject(sortParameter, entity);
-                selectFrom =
-                    selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort));
+    private String renderCriterion(CriteriaDefinition criterion, RelationalPersistentEntity<?> entity, Map<String, Object> bindings) {
+        if (criterion.isEmpty()) {
+            return null;
+        }
+        if (criterion.isGroup()) {
+            String group = null;
+            for (CriteriaDefinition member : criterion.getGroup()) {
+                if (!member.isEmpty()) {
+                    group = combine(group, member.getCombinator(), renderCriteria(member, entity, bindings));
+                }
             }
+            return group == null ? null : "(" + group + ")";
+        }
+
+        RelationalPersistentProperty property = entity.getPersistentProperty(criterion.getColumn().getReference());
+        String column =
+            ENTITY_ALIAS + "." + (property != null ? property.getColumnName().getReference() : criterion.getColumn().getReference());
+        boolean ignoreCase = criterion.isIgnoreCase();
+        switch (criterion.getComparator()) {
+            case IS_NULL:
+                return column + " IS NULL";
+            case IS_NOT_NULL:
+                return column + " IS NOT NULL";
+            case IS_TRUE:
+                return column + " = TRUE";
+            case IS_FALSE:
+                return column + " = FALSE";
+            case BETWEEN:
+            case NOT_BETWEEN:
+                Pair<?, ?> range = (Pair<?, ?>) criterion.getValue();
+                return (
+                    column +
+                    (criterion.getComparator() == CriteriaDefinition.Comparator.BETWEEN ? " BETWEEN " : " NOT BETWEEN ") +
+                    bind(range.getFirst(), bindings) +
+                    " AND " +
+                    bind(range.getSecond(), bindings)
+                );
+            case IN:
+                return column + " IN (" + bind(criterion.getValue(), bindings) + ")";
+            case NOT_IN:
+                return column + " NOT IN (" + bind(criterion.getValue(), bindings) + ")";
+            default:
+                String parameter = bind(criterion.getValue(), bindings);
+                if (ignoreCase) {
+                    column = "UPPER(" + column + ")";
+                    parameter = "UPPER(" + parameter + ")";
+                }
+                return column + " " + criterion.getComparator().getComparator() + " " + parameter;
         }
-        return createSelect(selectFrom.build());
+    }
+
+    private static String combine(String current, CriteriaDefinition.Combinator combinator, String next) {
+        if (current == null) {
+            return next;
+        }
+        if (next == null) {
+            return current;
+        }
+        return current + (combinator == CriteriaDefinition.Combinator.OR ? " OR " : " AND ") + next;
+    }
+
+    private static String bind(Object value, Map<String, Object> bindings) {
+        Assert.notNull(value, "criteria value is null");
+        String name = CRITERIA_PARAMETER_PREFIX + bindings.size();
+        bindings.put(name, value);
+        return ":" + name;
+    }
+
+    private RelationalPersistentEntity<?> getRequiredPersistentEntity(Class<?> entityType) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Assert.notNull(entity, "Unknown entity " + entityType);
+        return entity;
     }
 
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
@@ -174,6 +453,19 @@ public class EntityManager {
         return sqlRenderer.render(select);
     }
 
+    /**
+     * Turns an UPDATE statement into a statement which returns the updated rows, in a single round trip.
+     * @param update the UPDATE statement.
+     * @param columns the returned columns, separated by commas.
+     * @return the UPDATE ... RETURNING statement, or its {@code FINAL TABLE} equivalent on H2.
+     */
+    public String createUpdateReturning(String update, String columns) {
+        if (isH2()) {
+            return "SELECT " + columns + " FROM FINAL TABLE (" + update + ")";
+        }
+        return update + " RETURNING " + columns;
+    }
+
     /**
      * Inserts the given entity into the database - and sets the id, if it's an autoincrement field.
      * @param <S> the type of the persisted entity.
@@ -186,37 +478,76 @@ public class EntityManager {
 
     /**
      * Updates the table, which links the entity with the referred entities.
+     * <p>
+     * The links are compared with the stored ones, so that only the missing links are inserted, with a single multi-row
+     * statement, and only the extra links are deleted, with a single statement: unchanged links cost a single select.
+     * @param <T> the type of the ids of the referred entities.
      * @param table describes the link table, it contains a table name, the column name for the id, and for the referred entity id.
      * @param entityId the id of the entity, for which the links are created.
      * @param referencedIds the id of the referred entities.
      * @return the number of inserted rows.
      */
-    public Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<Long> referencedIds) {
-        return deleteFromLinkTable(table, entityId)
-            .then(
-                Flux
-                    .fromStream(referencedIds)
-                    .flatMap(
-                        (Long referenceId) -> {
-                            StatementMapper.InsertSpec insert = r2dbcEntityTemplate
-                                .getDataAccessStrategy()
-                                .getStatementMapper()
-                                .createInsert(table.tableName)
-                                .withColumn(table.idColumn, Parameter.from(entityId))
-                                .withColumn(table.referenceColumn, Parameter.from(referenceId));
-
-                            return r2dbcEntityTemplate
-                                .getDatabaseClient()
-                                .sql(statementMapper.getMappedObject(insert))
+    public <T> Mono<Integer> updateLinkTable(LinkTable table, Long entityId, Stream<T> referencedIds) {
+        Assert.notNull(entityId, "entityId is null");
+        Set<Object> linkedIds = referencedIds.collect(Collectors.toCollection(LinkedHashSet::new));
+        DatabaseClient db = r2dbcEntityTemplate.getDatabaseClient();
+        return db
+            .sql("SELECT " + table.referenceColumn + " FROM " + table.tableName + " WHERE " + table.idColumn + " = :entityId")
+            .bind("entityId", entityId)
+            .map(row -> row.get(0))
+            .all()
+            .collect(Collectors.toSet())
+            .flatMap(
+                storedIds -> {
+                    List<Object> removedIds = storedIds.stream().filter(id -> !linkedIds.contains(id)).collect(Collectors.toList());
+                    List<Object> addedIds = linkedIds.stream().filter(id -> !storedIds.contains(id)).collect(Collectors.toList());
+                    Mono<Integer> deleted = Mono.just(0);
+                    if (!removedIds.isEmpty()) {
+                        deleted =
+                            db
+                                .sql(
+                                    "DELETE FROM " +
+                                    table.tableName +
+                                    " WHERE " +
+                                    table.idColumn +
+                                    " = :entityId AND " +
+                                    table.referenceColumn +
+                                    " IN (:removedIds)"
+                                )
+                                .bind("entityId", entityId)
+                                .bind("removedIds", removedIds)
                                 .fetch()
                                 .rowsUpdated();
-                        }
-                    )
-                    .collectList()
-                    .map((List<Integer> updates) -> updates.stream().reduce(Integer::sum).orElse(0))
+                    }
+                    return deleted.then(insertIntoLinkTable(table, entityId, addedIds));
+                }
             );
     }
 
+    private Mono<Integer> insertIntoLinkTable(LinkTable table, Long entityId, List<Object> referencedIds) {
+        if (referencedIds.isEmpty()) {
+            return Mono.just(0);
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+            .append(table.tableName)
+            .append(" (")
+            .append(table.idColumn)
+            .append(", ")
+            .append(table.referenceColumn)
+            .append(") VALUES ");
+        for (int i = 0; i < referencedIds.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:entityId, :referencedId").append(i).append(')');
+        }
+        DatabaseClient.GenericExecuteSpec spec = r2dbcEntityTemplate.getDatabaseClient().sql(sql.toString()).bind("entityId", entityId);
+        for (int i = 0; i < referencedIds.size(); i++) {
+            spec = spec.bind("referencedId" + i, referencedIds.get(i));
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
     public Mono<Void> deleteFromLinkTable(LinkTable table, Long entityId) {
         Assert.notNull(entityId, "entityId is null");
         StatementMapper.DeleteSpec deleteSpec = r2dbcEntityTemplate
@@ -226,17 +557,4 @@ public class EntityManager {
             .withCriteria(Criteria.from(Criteria.where(table.idColumn).is(entityId)));
         return r2dbcEntityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(deleteSpec)).then();
     }
-
-    private static Collection<? extends OrderByField> createOrderByFields(Table table, Sort sortToUse) {
-        List<OrderByField> fields = new ArrayList<>();
-
-        for (Sort.Order order : sortToUse) {
-            String propertyName = order.getProperty();
-            OrderByField orderByField = OrderByField.from(table.column(propertyName).as(EntityManager.ALIAS_PREFIX + propertyName));
-
-            fields.add(order.isAscending() ? orderByField.asc() : orderByField.desc());
-        }
-
-        return fields;
-    }
 }
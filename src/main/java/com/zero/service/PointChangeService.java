@@ -0,0 +1,286 @@
+package com.zero.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zero.config.ApplicationProperties;
+import com.zero.repository.PointRepository;
+import com.zero.service.dto.PointChangeDTO;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+/**
+ * Service class for the change feed of the points.
+ * <p>
+ * On PostgreSQL the changes are sent by a trigger with {@code NOTIFY}, and received on a dedicated {@code LISTEN} connection,
+ * so the changes made by every instance of the application are seen. On H2 the changes are published by the repository
+ * once their transaction is committed, and only the changes made by this instance are seen.
+ * <p>
+ * On PostgreSQL the notifications also evict the changed points from the {@link PointRepository#POINTS_CACHE} cache, so that
+ * the changes made by the other instances are seen; the cache is cleared when notifications may have been missed.
+ * <p>
+ * The new subscribers share a sink which only sends the changes following their subscription. The clients resuming with a
+ * {@code Last-Event-ID} share another sink, which keeps the last {@code application.point.change-history-size} changes. All
+ * the subscribers share a single keep-alive timer.
+ * <p>
+ * The changes are numbered by each instance, from its start: the id of an event is made of the epoch of the instance, random
+ * at each start, and of the number of the change. A client resuming with the id of another instance, or of a previous start,
+ * gets a {@code reset} event, as the changes it missed can't be known.
+ */
+@Service
+public class PointChangeService {
+
+    public static final String CHANNEL = "point_changes";
+
+    private final Logger log = LoggerFactory.getLogger(PointChangeService.class);
+
+    private final EntityManager entityManager;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache pointsCache;
+
+    private final int historySize;
+
+    private final Sinks.Many<PointChangeDTO> history;
+
+    private final Sinks.Many<PointChangeDTO> changes;
+
+    private final Flux<ServerSentEvent<PointChangeDTO>> heartbeats;
+
+    private final String epoch = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+
+    private long sequence;
+
+    private Disposable listener;
+
+    public PointChangeService(
+        EntityManager entityManager,
+        ConnectionFactory connectionFactory,
+        ObjectMapper objectMapper,
+        CacheManager cacheManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.entityManager = entityManager;
+        this.connectionFactory = connectionFactory;
+        this.objectMapper = objectMapper;
+        this.pointsCache = cacheManager.getCache(PointRepository.POINTS_CACHE);
+        this.historySize = applicationProperties.getPoint().getChangeHistorySize();
+        this.history = Sinks.many().replay().limit(historySize);
+        this.changes = Sinks.many().multicast().directBestEffort();
+        this.heartbeats =
+            Flux
+                .interval(applicationProperties.getPoint().getChangeHeartbeat())
+                .map(tick -> ServerSentEvent.<PointChangeDTO>builder().comment("keep-alive").build())
+                .share();
+    }
+
+    /**
+     * Starts listening to the notifications of PostgreSQL, reconnecting if the connection is lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void listen() {
+        if (entityManager.isH2()) {
+            return;
+        }
+        ConnectionFactory factory = connectionFactory;
+        // the listening connection is held forever, so it is not taken from the pool
+        while (factory instanceof Wrapped) {
+            Object unwrapped = ((Wrapped<?>) factory).unwrap();
+            if (!(unwrapped instanceof ConnectionFactory)) {
+                break;
+            }
+            factory = (ConnectionFactory) unwrapped;
+        }
+        ConnectionFactory listeningFactory = factory;
+        AtomicBoolean connected = new AtomicBoolean();
+        listener =
+            Flux
+                .usingWhen(
+                    listeningFactory.create(),
+                    connection -> {
+                        PostgresqlConnection postgresqlConnection = (PostgresqlConnection) connection;
+                        return postgresqlConnection
+                            .createStatement("LISTEN " + CHANNEL)
+                            .execute()
+                            .flatMap(result -> result.getRowsUpdated())
+                            .doOnComplete(
+                                () -> {
+                                    // the notifications sent while disconnected are lost
+                                    if (connected.getAndSet(true)) {
+                                        pointsCache.clear();
+                                        emit(new PointChangeDTO(PointChangeDTO.Type.RESET, null, null));
+                                    }
+                                    log.debug("Listening to the {} notifications", CHANNEL);
+                                }
+                            )
+                            .thenMany(postgresqlConnection.getNotifications());
+                    },
+                    Connection::close
+                )
+                .doOnError(e -> log.warn("Lost the {} notifications: {}", CHANNEL, e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .subscribe(notification -> notification.getParameter().ifPresent(this::emitNotification));
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (listener != null) {
+            listener.dispose();
+        }
+    }
+
+    private void emitNotification(String payload) {
+        try {
+            JsonNode notification = objectMapper.readTree(payload);
+            PointChangeDTO.Type type;
+            switch (notification.path("type").asText()) {
+                case "INSERT":
+                    type = PointChangeDTO.Type.CREATED;
+                    break;
+                case "DELETE":
+                    type = PointChangeDTO.Type.DELETED;
+                    break;
+                default:
+                    type = PointChangeDTO.Type.UPDATED;
+            }
+            // the trigger notifies the rows changed by a statement together
+            for (JsonNode change : notification.path("changes")) {
+                Long id = change.path("id").asLong();
+                // the point may have been changed by another instance
+                pointsCache.evict(id);
+                emit(new PointChangeDTO(type, id, change.path("version").asLong()));
+            }
+        } catch (Exception e) {
+            log.warn("Invalid {} notification {}: {}", CHANNEL, payload, e.getMessage());
+        }
+    }
+
+    /**
+     * Records a change made by the application. The change is published once the current transaction, if any, is committed.
+     * <p>
+     * Nothing is done on PostgreSQL, where the changes are notified by the database.
+     *
+     * @param type the type of the change.
+     * @param id the id of the changed point.
+     * @param version the version of the point after the change, if known.
+     * @return a {@link Mono} completing once the change is recorded.
+     */
+    public Mono<Void> recordChange(PointChangeDTO.Type type, Long id, Long version) {
+        if (!entityManager.isH2()) {
+            return Mono.empty();
+        }
+        Runnable publish = () -> emit(new PointChangeDTO(type, id, version));
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .filter(TransactionSynchronizationManager::isSynchronizationActive)
+            .doOnNext(
+                synchronizationManager ->
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCommit() {
+                                return Mono.fromRunnable(publish);
+                            }
+                        }
+                    )
+            )
+            .switchIfEmpty(Mono.fromRunnable(publish))
+            .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(publish))
+            .then();
+    }
+
+    private synchronized void emit(PointChangeDTO change) {
+        change.setSequence(++sequence);
+        history.tryEmitNext(change);
+        changes.tryEmitNext(change);
+    }
+
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * Streams the changes of the points as server-sent events, whose id is the position of the change in the feed of this
+     * instance.
+     *
+     * @param lastEventId the id of the last event received by the client, to resume the feed after it, or null to only get
+     * the new changes. If some changes following it are not kept anymore, or if it was sent by another instance or before a
+     * restart, the feed starts with a {@code reset} event, whose id is the position of the feed.
+     * @return the events, interleaved with keep-alive comments.
+     */
+    public Flux<ServerSentEvent<PointChangeDTO>> changes(String lastEventId) {
+        return Flux.defer(
+            () -> {
+                Flux<PointChangeDTO> events;
+                if (lastEventId == null) {
+                    // a change which isn't delivered is lost, so a slow client gets an error past the size of the history,
+                    // and resumes from its last event
+                    events = changes.asFlux().onBackpressureBuffer(historySize);
+                } else {
+                    long current = currentSequence();
+                    long last = sequenceOf(lastEventId);
+                    // the sequence has no gaps, so the oldest change still kept is known
+                    boolean resumable = last >= 0 && last <= current && last >= current - historySize;
+                    long after = resumable ? last : current;
+                    // the history is replayed from its oldest change, only the ones following the last event are sent
+                    events = history.asFlux().filter(change -> change.getSequence() > after);
+                    if (!resumable) {
+                        PointChangeDTO reset = new PointChangeDTO(PointChangeDTO.Type.RESET, null, null);
+                        reset.setSequence(current);
+                        events = Flux.just(reset).concatWith(events);
+                    }
+                }
+                Flux<ServerSentEvent<PointChangeDTO>> connected = Flux.just(
+                    ServerSentEvent.<PointChangeDTO>builder().comment("connected").build()
+                );
+                return connected.concatWith(Flux.merge(events.map(this::toEvent), heartbeats));
+            }
+        );
+    }
+
+    private ServerSentEvent<PointChangeDTO> toEvent(PointChangeDTO change) {
+        ServerSentEvent.Builder<PointChangeDTO> event = ServerSentEvent
+            .<PointChangeDTO>builder()
+            .event(change.getType().name().toLowerCase(Locale.ROOT));
+        event.id(epoch + ':' + change.getSequence());
+        return change.getType() == PointChangeDTO.Type.RESET ? event.build() : event.data(change).build();
+    }
+
+    // the sequence of an event id of this instance, or -1
+    private long sequenceOf(String eventId) {
+        int separator = eventId.indexOf(':');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
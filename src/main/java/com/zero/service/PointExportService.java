@@ -0,0 +1,110 @@
+package com.zero.service;
+
+import com.zero.repository.PointRepository;
+import io.r2dbc.spi.Row;
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Service class for exporting the points as CSV.
+ * <p>
+ * Each row read from the database is written straight into a pooled buffer, without creating a {@link com.zero.domain.Point}
+ * nor a line of text, and the buffers are sent by groups of {@link #ROWS_PER_CHUNK} rows: the export runs in constant memory
+ * whatever the number of points.
+ */
+@Service
+public class PointExportService {
+
+    private static final int ROWS_PER_CHUNK = 256;
+
+    private static final int ROW_CAPACITY = 128;
+
+    private static final byte[] HEADER = "id,title,description,version\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Logger log = LoggerFactory.getLogger(PointExportService.class);
+
+    private final PointRepository pointRepository;
+
+    public PointExportService(PointRepository pointRepository) {
+        this.pointRepository = pointRepository;
+    }
+
+    /**
+     * Exports all the points, ordered by id, as CSV with a header line.
+     *
+     * @param bufferFactory the factory of the response buffers.
+     * @return the content of the CSV file.
+     */
+    public Flux<DataBuffer> exportPoints(DataBufferFactory bufferFactory) {
+        log.debug("Request to export Points");
+        Flux<DataBuffer> rows = pointRepository
+            .findAllRows((row, metadata) -> writeRow(row, bufferFactory.allocateBuffer(ROW_CAPACITY)))
+            .buffer(ROWS_PER_CHUNK)
+            .map(bufferFactory::join);
+        return Flux
+            .defer(() -> Flux.just(bufferFactory.wrap(HEADER)))
+            .concatWith(rows)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private static DataBuffer writeRow(Row row, DataBuffer buffer) {
+        writeNumber(buffer, row.get("id", Long.class));
+        buffer.write((byte) ',');
+        writeText(buffer, row.get("title", String.class));
+        buffer.write((byte) ',');
+        writeText(buffer, row.get("description", String.class));
+        buffer.write((byte) ',');
+        writeNumber(buffer, row.get("version", Long.class));
+        buffer.write((byte) '\n');
+        return buffer;
+    }
+
+    private static void writeNumber(DataBuffer buffer, Long value) {
+        if (value == null) {
+            return;
+        }
+        long number = value;
+        if (number < 0) {
+            buffer.write((byte) '-');
+            number = -number;
+        }
+        long divisor = 1;
+        while (number / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + (number / divisor) % 10));
+        }
+    }
+
+    // values holding a separator, a quote or a line break are quoted, their quotes being doubled
+    private static void writeText(DataBuffer buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            buffer.write(value, StandardCharsets.UTF_8);
+            return;
+        }
+        buffer.write((byte) '"');
+        int start = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+            buffer.write(value.subSequence(start, i + 1), StandardCharsets.UTF_8);
+            buffer.write((byte) '"');
+            start = i + 1;
+        }
+        buffer.write(value.subSequence(start, value.length()), StandardCharsets.UTF_8);
+        buffer.write((byte) '"');
+    }
+}
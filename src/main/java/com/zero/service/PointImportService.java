@@ -0,0 +1,204 @@
+package com.zero.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zero.config.ApplicationProperties;
+import com.zero.domain.Point;
+import com.zero.repository.PointRepository;
+import com.zero.service.dto.PointImportReportDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service class for importing points from newline delimited JSON or CSV files.
+ * <p>
+ * The file is read line by line as it arrives, and the valid lines are written with multi-row inserts of
+ * {@code application.point.batch-size} rows, so only one batch is held in memory at a time. Each batch is written by its own
+ * transaction, so the rows reported as imported are committed, and are kept if the import is then cancelled or fails.
+ */
+@Service
+public class PointImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final String CSV_HEADER = "title,description";
+
+    private final Logger log = LoggerFactory.getLogger(PointImportService.class);
+
+    private final StringDecoder lineDecoder = StringDecoder.allMimeTypes();
+
+    private final PointRepository pointRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public PointImportService(
+        PointRepository pointRepository,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        TransactionalOperator transactionalOperator
+    ) {
+        this.pointRepository = pointRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * Imports the points of a file. It must not be called within a transaction, which would hold every batch until the end
+     * of the file.
+     *
+     * @param content the content of the file.
+     * @param contentType the type of the file, {@link MediaType#APPLICATION_NDJSON} or {@link #TEXT_CSV}.
+     * @return a report after each committed batch, with the running totals and the errors of the lines rejected in that batch.
+     */
+    public Flux<PointImportReportDTO> importPoints(Flux<DataBuffer> content, MediaType contentType) {
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        log.debug("Request to import Points from {}", csv ? "CSV" : "NDJSON");
+        return Flux.defer(
+            () -> {
+                AtomicLong processed = new AtomicLong();
+                AtomicLong imported = new AtomicLong();
+                AtomicLong rejected = new AtomicLong();
+                return lineDecoder
+                    .decode(content, ResolvableType.forClass(String.class), null, Collections.emptyMap())
+                    .index((index, line) -> new ImportedLine(index + 1, line))
+                    .filter(line -> !line.text.trim().isEmpty())
+                    .filter(line -> !(csv && line.number == 1 && CSV_HEADER.equalsIgnoreCase(line.text.trim())))
+                    .map(line -> csv ? parseCsv(line) : parseJson(line))
+                    .buffer(applicationProperties.getPoint().getBatchSize())
+                    .concatMap(
+                        batch -> {
+                            List<Point> points = new ArrayList<>();
+                            List<PointImportReportDTO.RowError> errors = new ArrayList<>();
+                            for (ImportedLine line : batch) {
+                                if (line.error != null) {
+                                    errors.add(new PointImportReportDTO.RowError(line.number, line.error));
+                                } else {
+                                    points.add(line.point);
+                                }
+                            }
+                            Mono<Long> inserted = points.isEmpty()
+                                ? Mono.just(0L)
+                                : pointRepository.insertAll(points).count().as(transactionalOperator::transactional);
+                            return inserted.map(
+                                count ->
+                                    new PointImportReportDTO(
+                                        processed.addAndGet(batch.size()),
+                                        imported.addAndGet(count),
+                                        rejected.addAndGet(errors.size()),
+                                        errors
+                                    )
+                            );
+                        }
+                    );
+            }
+        );
+    }
+
+    private ImportedLine parseJson(ImportedLine line) {
+        try {
+            return validate(line, objectMapper.readValue(line.text, Point.class));
+        } catch (JsonProcessingException e) {
+            return line.rejected("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private ImportedLine parseCsv(ImportedLine line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        String text = line.text;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return line.rejected("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() > 2) {
+            return line.rejected("Expected 2 fields but found " + fields.size());
+        }
+        String description = fields.size() == 2 && !fields.get(1).isEmpty() ? fields.get(1) : null;
+        return validate(line, new Point().title(fields.get(0)).description(description));
+    }
+
+    private ImportedLine validate(ImportedLine line, Point point) {
+        if (point.getId() != null) {
+            return line.rejected("A new point cannot already have an ID");
+        }
+        Set<ConstraintViolation<Point>> violations = validator.validate(point);
+        if (!violations.isEmpty()) {
+            return line.rejected(
+                violations
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))
+            );
+        }
+        line.point = point;
+        return line;
+    }
+
+    private static class ImportedLine {
+
+        private final long number;
+
+        private final String text;
+
+        private Point point;
+
+        private String error;
+
+        ImportedLine(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+
+        ImportedLine rejected(String error) {
+            this.error = error;
+            return this;
+        }
+    }
+}
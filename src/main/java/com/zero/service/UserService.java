@@ -1,26 +1,41 @@
 package com.zero.service;
 
+import com.zero.config.ApplicationProperties;
 import com.zero.config.Constants;
 import com.zero.domain.Authority;
 import com.zero.domain.User;
-import com.zero.repository.AuthorityRepository;
 import com.zero.repository.UserRepository;
 import com.zero.security.AuthoritiesConstants;
+import com.zero.security.PasswordHashingScheduler;
 import com.zero.security.SecurityUtils;
 import com.zero.service.dto.AdminUserDTO;
 import com.zero.service.dto.UserDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -38,12 +53,53 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final PasswordHashingScheduler passwordHashingScheduler;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final AuthorityRegistry authorityRegistry;
+
+    private final Cache usersByLoginCache;
+
+    private final Cache usersByEmailCache;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties.UserCleanup userCleanup;
+
+    private final Timer cleanupDurations;
+
+    private final DistributionSummary cleanupRates;
+
+    private final AtomicBoolean cleanupRunning = new AtomicBoolean();
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        PasswordHashingScheduler passwordHashingScheduler,
+        AuthorityRegistry authorityRegistry,
+        CacheManager cacheManager,
+        TransactionalOperator transactionalOperator,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.authorityRegistry = authorityRegistry;
+        this.usersByLoginCache = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE);
+        this.usersByEmailCache = cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE);
+        this.transactionalOperator = transactionalOperator;
+        this.userCleanup = applicationProperties.getUserCleanup();
+        this.cleanupDurations =
+            Timer
+                .builder("user.cleanup.duration")
+                .description("Duration of the removal of the not activated users")
+                .register(meterRegistry);
+        this.cleanupRates =
+            DistributionSummary
+                .builder("user.cleanup.rate")
+                .description("Number of not activated users removed per second")
+                .baseUnit("rows/s")
+                .register(meterRegistry);
     }
 
     @Transactional
@@ -56,7 +112,7 @@ public class UserService {
                     // activate given user for the registration key.
                     user.setActivated(true);
                     user.setActivationKey(null);
-                    return saveUser(user);
+                    return saveUser(user, false);
                 }
             )
             .doOnNext(user -> log.debug("Activated user: {}", user));
@@ -68,16 +124,20 @@ public class UserService {
         return userRepository
             .findOneByResetKey(key)
             .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
-            .publishOn(Schedulers.boundedElastic())
-            .map(
-                user -> {
-                    user.setPassword(passwordEncoder.encode(newPassword));
-                    user.setResetKey(null);
-                    user.setResetDate(null);
-                    return user;
-                }
+            .flatMap(
+                user ->
+                    passwordHashingScheduler
+                        .hash(() -> passwordEncoder.encode(newPassword))
+                        .map(
+                            encryptedPassword -> {
+                                user.setPassword(encryptedPassword);
+                                user.setResetKey(null);
+                                user.setResetDate(null);
+                                return user;
+                            }
+                        )
             )
-            .flatMap(this::saveUser);
+            .flatMap(user -> saveUser(user, false));
     }
 
     @Transactional
@@ -93,67 +153,60 @@ public class UserService {
                     return user;
                 }
             )
-            .flatMap(this::saveUser);
+            .flatMap(user -> saveUser(user, false));
     }
 
     @Transactional
     public Mono<User> registerUser(AdminUserDTO userDTO, String password) {
+        // the login and the email are checked with a single query, the not activated users using them being deleted
+        String login = userDTO.getLogin();
         return userRepository
-            .findOneByLogin(userDTO.getLogin().toLowerCase())
+            .findAllByLoginOrEmailIgnoreCase(login, userDTO.getEmail())
+            .collectList()
             .flatMap(
-                existingUser -> {
-                    if (!existingUser.isActivated()) {
-                        return userRepository.delete(existingUser);
-                    } else {
+                existingUsers -> {
+                    if (existingUsers.stream().anyMatch(user -> user.isActivated() && login.equalsIgnoreCase(user.getLogin()))) {
                         return Mono.error(new UsernameAlreadyUsedException());
                     }
-                }
-            )
-            .then(userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()))
-            .flatMap(
-                existingUser -> {
-                    if (!existingUser.isActivated()) {
-                        return userRepository.delete(existingUser);
-                    } else {
+                    // the other users use the email
+                    if (existingUsers.stream().anyMatch(User::isActivated)) {
                         return Mono.error(new EmailAlreadyUsedException());
                     }
+                    return Flux
+                        .fromIterable(existingUsers)
+                        .concatMap(existingUser -> userRepository.delete(existingUser).then(clearUserCaches(existingUser)))
+                        .then();
                 }
             )
-            .publishOn(Schedulers.boundedElastic())
-            .then(
-                Mono.fromCallable(
-                    () -> {
-                        User newUser = new User();
-                        String encryptedPassword = passwordEncoder.encode(password);
-                        newUser.setLogin(userDTO.getLogin().toLowerCase());
-                        // new user gets initially a generated password
-                        newUser.setPassword(encryptedPassword);
-                        newUser.setFirstName(userDTO.getFirstName());
-                        newUser.setLastName(userDTO.getLastName());
-                        if (userDTO.getEmail() != null) {
-                            newUser.setEmail(userDTO.getEmail().toLowerCase());
-                        }
-                        newUser.setImageUrl(userDTO.getImageUrl());
-                        newUser.setLangKey(userDTO.getLangKey());
-                        // new user is not active
-                        newUser.setActivated(false);
-                        // new user gets registration key
-                        newUser.setActivationKey(RandomUtil.generateActivationKey());
-                        return newUser;
+            .then(passwordHashingScheduler.hash(() -> passwordEncoder.encode(password)))
+            .map(
+                encryptedPassword -> {
+                    User newUser = new User();
+                    newUser.setLogin(userDTO.getLogin().toLowerCase());
+                    // new user gets initially a generated password
+                    newUser.setPassword(encryptedPassword);
+                    newUser.setFirstName(userDTO.getFirstName());
+                    newUser.setLastName(userDTO.getLastName());
+                    if (userDTO.getEmail() != null) {
+                        newUser.setEmail(userDTO.getEmail().toLowerCase());
                     }
-                )
+                    newUser.setImageUrl(userDTO.getImageUrl());
+                    newUser.setLangKey(userDTO.getLangKey());
+                    // new user is not active
+                    newUser.setActivated(false);
+                    // new user gets registration key
+                    newUser.setActivationKey(RandomUtil.generateActivationKey());
+                    return newUser;
+                }
             )
             .flatMap(
-                newUser -> {
-                    Set<Authority> authorities = new HashSet<>();
-                    return authorityRepository
-                        .findById(AuthoritiesConstants.USER)
-                        .map(authorities::add)
+                newUser ->
+                    authorityRegistry
+                        .resolve(Collections.singleton(AuthoritiesConstants.USER))
+                        .doOnNext(newUser::setAuthorities)
                         .thenReturn(newUser)
-                        .doOnNext(user -> user.setAuthorities(authorities))
                         .flatMap(this::saveUser)
-                        .doOnNext(user -> log.debug("Created Information for User: {}", user));
-                }
+                        .doOnNext(user -> log.debug("Created Information for User: {}", user))
             );
     }
 
@@ -172,20 +225,17 @@ public class UserService {
         } else {
             user.setLangKey(userDTO.getLangKey());
         }
-        return Flux
-            .fromIterable(userDTO.getAuthorities() != null ? userDTO.getAuthorities() : new HashSet<>())
-            .flatMap(authorityRepository::findById)
-            .doOnNext(authority -> user.getAuthorities().add(authority))
-            .then(Mono.just(user))
-            .publishOn(Schedulers.boundedElastic())
+        return authorityRegistry
+            .resolve(userDTO.getAuthorities() != null ? userDTO.getAuthorities() : new HashSet<>())
+            .doOnNext(authorities -> user.getAuthorities().addAll(authorities))
+            .then(passwordHashingScheduler.hash(() -> passwordEncoder.encode(RandomUtil.generatePassword())))
             .map(
-                newUser -> {
-                    String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
-                    newUser.setPassword(encryptedPassword);
-                    newUser.setResetKey(RandomUtil.generateResetKey());
-                    newUser.setResetDate(Instant.now());
-                    newUser.setActivated(true);
-                    return newUser;
+                encryptedPassword -> {
+                    user.setPassword(encryptedPassword);
+                    user.setResetKey(RandomUtil.generateResetKey());
+                    user.setResetDate(Instant.now());
+                    user.setActivated(true);
+                    return user;
                 }
             )
             .flatMap(this::saveUser)
@@ -202,6 +252,7 @@ public class UserService {
     public Mono<AdminUserDTO> updateUser(AdminUserDTO userDTO) {
         return userRepository
             .findById(userDTO.getId())
+            .flatMap(user -> clearUserCaches(user).thenReturn(user))
             .flatMap(
                 user -> {
                     user.setLogin(userDTO.getLogin().toLowerCase());
@@ -215,12 +266,10 @@ public class UserService {
                     user.setLangKey(userDTO.getLangKey());
                     Set<Authority> managedAuthorities = user.getAuthorities();
                     managedAuthorities.clear();
-                    return userRepository
-                        .deleteUserAuthorities(user.getId())
-                        .thenMany(Flux.fromIterable(userDTO.getAuthorities()))
-                        .flatMap(authorityRepository::findById)
-                        .map(managedAuthorities::add)
-                        .then(Mono.just(user));
+                    return authorityRegistry
+                        .resolve(userDTO.getAuthorities() != null ? userDTO.getAuthorities() : new HashSet<>())
+                        .doOnNext(managedAuthorities::addAll)
+                        .thenReturn(user);
                 }
             )
             .flatMap(this::saveUser)
@@ -232,7 +281,7 @@ public class UserService {
     public Mono<Void> deleteUser(String login) {
         return userRepository
             .findOneByLogin(login)
-            .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(user -> userRepository.delete(user).then(clearUserCaches(user)).thenReturn(user))
             .doOnNext(user -> log.debug("Deleted User: {}", user))
             .then();
     }
@@ -252,6 +301,7 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
+            .flatMap(user -> clearUserCaches(user).thenReturn(user))
             .flatMap(
                 user -> {
                     user.setFirstName(firstName);
@@ -261,7 +311,7 @@ public class UserService {
                     }
                     user.setLangKey(langKey);
                     user.setImageUrl(imageUrl);
-                    return saveUser(user);
+                    return saveUser(user, false);
                 }
             )
             .doOnNext(user -> log.debug("Changed Information for User: {}", user))
@@ -270,6 +320,18 @@ public class UserService {
 
     @Transactional
     public Mono<User> saveUser(User user) {
+        return saveUser(user, true);
+    }
+
+    /**
+     * Saves a user.
+     *
+     * @param user the user.
+     * @param withAuthorities whether the authorities of the user are saved: they are compared with the stored ones, so that
+     * only the added and removed authorities are written. The users read without their authorities are saved without them.
+     * @return the saved user.
+     */
+    private Mono<User> saveUser(User user, boolean withAuthorities) {
         return SecurityUtils
             .getCurrentUserLogin()
             .switchIfEmpty(Mono.just(Constants.SYSTEM))
@@ -284,11 +346,15 @@ public class UserService {
                     return userRepository
                         .save(user)
                         .flatMap(
-                            savedUser ->
-                                Flux
-                                    .fromIterable(user.getAuthorities())
-                                    .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
-                                    .then(Mono.just(savedUser))
+                            savedUser -> {
+                                Mono<Integer> authorities = withAuthorities
+                                    ? userRepository.updateUserAuthorities(
+                                        savedUser.getId(),
+                                        user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet())
+                                    )
+                                    : Mono.just(0);
+                                return authorities.then(clearUserCaches(savedUser)).then(Mono.just(savedUser));
+                            }
                         );
                 }
             );
@@ -299,19 +365,26 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
-            .publishOn(Schedulers.boundedElastic())
-            .map(
-                user -> {
-                    String currentEncryptedPassword = user.getPassword();
-                    if (!passwordEncoder.matches(currentClearTextPassword, currentEncryptedPassword)) {
-                        throw new InvalidPasswordException();
-                    }
-                    String encryptedPassword = passwordEncoder.encode(newPassword);
-                    user.setPassword(encryptedPassword);
-                    return user;
-                }
+            .flatMap(
+                user ->
+                    passwordHashingScheduler
+                        .hash(
+                            () -> {
+                                String currentEncryptedPassword = user.getPassword();
+                                if (!passwordEncoder.matches(currentClearTextPassword, currentEncryptedPassword)) {
+                                    throw new InvalidPasswordException();
+                                }
+                                return passwordEncoder.encode(newPassword);
+                            }
+                        )
+                        .map(
+                            encryptedPassword -> {
+                                user.setPassword(encryptedPassword);
+                                return user;
+                            }
+                        )
             )
-            .flatMap(this::saveUser)
+            .flatMap(user -> saveUser(user, false))
             .doOnNext(user -> log.debug("Changed password for User: {}", user))
             .then();
     }
@@ -321,6 +394,18 @@ public class UserService {
         return userRepository.findAllWithAuthorities(pageable).map(AdminUserDTO::new);
     }
 
+    /**
+     * Gets a page of users, reading only the given fields.
+     *
+     * @param pageable the pagination information.
+     * @param fields the names of the fields to read, the authorities being read only if {@code authorities} is one of them.
+     * @return the users, whose other fields are empty.
+     */
+    @Transactional(readOnly = true)
+    public Flux<AdminUserDTO> getAllManagedUsers(Pageable pageable, Collection<String> fields) {
+        return userRepository.findAllBy(pageable, fields).map(AdminUserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Flux<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
@@ -331,12 +416,13 @@ public class UserService {
         return userRepository.count();
     }
 
-    @Transactional(readOnly = true)
+    // no transaction for the single lookups, which are cached, so that a cache hit holds no connection
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<User> getUserWithAuthorities() {
         return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
     }
@@ -348,25 +434,110 @@ public class UserService {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void removeNotActivatedUsers() {
-        removeNotActivatedUsersReactively().blockLast();
+        removeNotActivatedUsersReactively()
+            .subscribe(removed -> {}, e -> log.error("Could not remove the not activated users: {}", e.getMessage(), e));
     }
 
-    @Transactional
-    public Flux<User> removeNotActivatedUsersReactively() {
-        return userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(
-                LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC)
+    /**
+     * Removes the not activated users created more than 3 days ago.
+     * <p>
+     * The users are removed by chunks of {@code application.user-cleanup.chunk-size}, each chunk deleting the authorities then
+     * the users with one statement each, in its own transaction, and being followed by a pause of
+     * {@code application.user-cleanup.pause}. In dry-run mode, the users are only counted.
+     *
+     * @return the number of users removed, or which would be removed in dry-run mode; empty if a removal is already running.
+     */
+    public Mono<Long> removeNotActivatedUsersReactively() {
+        return Mono.defer(
+            () -> {
+                if (!cleanupRunning.compareAndSet(false, true)) {
+                    log.warn("The not activated users are already being removed");
+                    return Mono.empty();
+                }
+                LocalDateTime createdBefore = LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC);
+                Mono<Long> removal = userCleanup.isDryRun()
+                    ? userRepository
+                        .countByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(createdBefore)
+                        .doOnNext(count -> log.info("Dry run: {} not activated users would be removed", count))
+                    : removeNotActivatedUsers(createdBefore);
+                return removal.doFinally(signal -> cleanupRunning.set(false));
+            }
+        );
+    }
+
+    private Mono<Long> removeNotActivatedUsers(LocalDateTime createdBefore) {
+        int chunkSize = userCleanup.getChunkSize();
+        Duration pause = userCleanup.getPause();
+        long start = System.nanoTime();
+        return removeNotActivatedUsersChunk(createdBefore, chunkSize)
+            .expand(
+                removed ->
+                    removed < chunkSize ? Mono.empty() : Mono.delay(pause).then(removeNotActivatedUsersChunk(createdBefore, chunkSize))
             )
-            .flatMap(user -> userRepository.delete(user).thenReturn(user))
-            .doOnNext(user -> log.debug("Deleted User: {}", user));
+            .reduce(0L, Long::sum)
+            .doOnNext(
+                total -> {
+                    long duration = System.nanoTime() - start;
+                    cleanupDurations.record(duration, TimeUnit.NANOSECONDS);
+                    cleanupRates.record(total * 1e9 / Math.max(duration, 1));
+                    log.info("Removed {} not activated users in {} ms", total, TimeUnit.NANOSECONDS.toMillis(duration));
+                }
+            );
+    }
+
+    private Mono<Long> removeNotActivatedUsersChunk(LocalDateTime createdBefore, int chunkSize) {
+        return userRepository
+            .deleteNotActivatedUsers(createdBefore, chunkSize)
+            .concatMap(user -> clearUserCaches(user).thenReturn(user))
+            .doOnNext(user -> log.debug("Deleted User: {}", user))
+            .count()
+            .as(transactionalOperator::transactional);
     }
 
     /**
      * Gets a list of all the authorities.
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
     public Flux<String> getAuthorities() {
-        return authorityRepository.findAll().map(Authority::getName);
+        return authorityRegistry.getSnapshot().flatMapIterable(AuthorityRegistry.Snapshot::getNames);
+    }
+
+    /**
+     * Removes the user from the caches of the authentication, now and again once the current transaction, if any, is
+     * completed: a concurrent read could otherwise cache the user as it was before the transaction.
+     *
+     * @param user the user, with the login and the email it had before any change.
+     * @return a {@link Mono} completing once the user is removed.
+     */
+    private Mono<Void> clearUserCaches(User user) {
+        String login = user.getLogin();
+        String email = user.getEmail() != null ? user.getEmail().toLowerCase() : null;
+        Runnable evict = () -> {
+            usersByLoginCache.evict(login);
+            if (email != null) {
+                usersByEmailCache.evict(email);
+            }
+        };
+        return Mono.defer(
+            () -> {
+                evict.run();
+                return TransactionSynchronizationManager
+                    .forCurrentTransaction()
+                    .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                    .doOnNext(
+                        synchronizationManager ->
+                            synchronizationManager.registerSynchronization(
+                                new TransactionSynchronization() {
+                                    @Override
+                                    public Mono<Void> afterCompletion(int status) {
+                                        return Mono.fromRunnable(evict);
+                                    }
+                                }
+                            )
+                    )
+                    .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                    .then();
+            }
+        );
     }
 }
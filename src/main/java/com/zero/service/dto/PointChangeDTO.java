@@ -0,0 +1,90 @@
+package com.zero.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A DTO representing a change of a point, sent by the change feed.
+ */
+public class PointChangeDTO {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * Some changes may have been missed, the points have to be read again.
+         */
+        RESET,
+    }
+
+    private long sequence;
+
+    private Type type;
+
+    private Long id;
+
+    private Long version;
+
+    public PointChangeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PointChangeDTO(Type type, Long id, Long version) {
+        this.type = type;
+        this.id = id;
+        this.version = version;
+    }
+
+    /**
+     * @return the position of the change in the feed of this instance, sent in the id of the event.
+     */
+    @JsonIgnore
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the id of the changed point.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the version of the point after the change, if known.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PointChangeDTO{" +
+            "sequence=" + sequence +
+            ", type=" + type +
+            ", id=" + id +
+            ", version=" + version +
+            "}";
+    }
+}
@@ -0,0 +1,127 @@
+package com.zero.service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the progress of a point import, sent after each written batch.
+ */
+public class PointImportReportDTO {
+
+    private long processed;
+
+    private long imported;
+
+    private long rejected;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public PointImportReportDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PointImportReportDTO(long processed, long imported, long rejected, List<RowError> errors) {
+        this.processed = processed;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    /**
+     * @return the number of lines read so far.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * @return the number of points written so far.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * @return the number of lines rejected so far.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return the errors of the lines rejected since the previous report.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PointImportReportDTO{" +
+            "processed=" + processed +
+            ", imported=" + imported +
+            ", rejected=" + rejected +
+            ", errors=" + errors +
+            "}";
+    }
+
+    /**
+     * A line which couldn't be imported.
+     */
+    public static class RowError {
+
+        private long line;
+
+        private String message;
+
+        public RowError() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * @return the number of the line in the imported file, starting at 1.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "RowError{line=" + line + ", message='" + message + "'}";
+        }
+    }
+}
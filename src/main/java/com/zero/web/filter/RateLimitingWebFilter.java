@@ -0,0 +1,266 @@
+package com.zero.web.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits the {@code POST} requests of the routes of {@code application.rate-limit.routes}, by client IP address and by login.
+ * The paths of the routes are matched as the handler mappings match them, so with an optional trailing slash.
+ * <p>
+ * Each client and each login of a route has a bucket, following the generic cell rate algorithm: a bucket only holds the
+ * time at which it is full again, updated with a compare-and-set, so the requests never wait for a lock. The buckets are kept
+ * in a Caffeine cache, whose concurrent map is striped, and are forgotten once idle for the period of their route, when they
+ * are full anyway.
+ * <p>
+ * The requests over the limit get a {@code 429 (Too Many Requests)} response with a {@code Retry-After} header, before the
+ * security chain, so before any hashing or database lookup. The rejections are counted by the {@code rate.limit.rejected}
+ * metric, tagged with the route and the kind of the key.
+ * <p>
+ * Behind {@code application.rate-limit.trusted-proxies} proxies, the client address is read from the {@code X-Forwarded-For}
+ * header, counting the proxies from its end, so that the addresses sent by a client can't be used to escape its limits. The
+ * remote address is used otherwise, and if the header has less addresses than proxies.
+ */
+@Component
+@Order(-200) // before the Spring Security chain, at -100
+public class RateLimitingWebFilter implements WebFilter {
+
+    // the bodies of the limited routes are small, a bigger one is not read
+    static final int MAX_BODY_SIZE = 16 * 1024;
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final List<LimitedRoute> routes = new ArrayList<>();
+
+    private final ObjectMapper objectMapper;
+
+    private final int trustedProxies;
+
+    public RateLimitingWebFilter(ApplicationProperties applicationProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.trustedProxies = applicationProperties.getRateLimit().getTrustedProxies();
+        int maxKeys = applicationProperties.getRateLimit().getMaxKeys();
+        PathPatternParser parser = new PathPatternParser();
+        for (ApplicationProperties.RateLimit.Route route : applicationProperties.getRateLimit().getRoutes()) {
+            routes.add(new LimitedRoute(parser.parse(route.getPath()), route, maxKeys, meterRegistry));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (routes.isEmpty() || request.getMethod() != HttpMethod.POST) {
+            return chain.filter(exchange);
+        }
+        PathContainer path = request.getPath().pathWithinApplication();
+        LimitedRoute route = routes.stream().filter(limitedRoute -> limitedRoute.path.matches(path)).findFirst().orElse(null);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        long now = System.nanoTime();
+        if (route.ipLimit != null) {
+            long wait = route.ipLimit.tryAcquire(clientAddress(request), now);
+            if (wait > 0) {
+                return reject(exchange.getResponse(), wait);
+            }
+        }
+        if (route.loginLimit == null) {
+            return chain.filter(exchange);
+        }
+        return DataBufferUtils
+            .join(request.getBody(), MAX_BODY_SIZE)
+            .map(
+                buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                }
+            )
+            .defaultIfEmpty(new byte[0])
+            .flatMap(
+                body -> {
+                    String login = extractLogin(body, route.loginField);
+                    long wait = login != null ? route.loginLimit.tryAcquire(login, now) : 0;
+                    if (wait > 0) {
+                        return reject(exchange.getResponse(), wait);
+                    }
+                    // the body was consumed, so the request is given a copy of it
+                    ServerHttpRequest replayed = new ServerHttpRequestDecorator(request) {
+                        @Override
+                        public Flux<DataBuffer> getBody() {
+                            return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+                        }
+                    };
+                    return chain.filter(exchange.mutate().request(replayed).build());
+                }
+            )
+            .onErrorResume(
+                DataBufferLimitException.class,
+                e -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+                    return exchange.getResponse().setComplete();
+                }
+            );
+    }
+
+    private String clientAddress(ServerHttpRequest request) {
+        if (trustedProxies > 0) {
+            List<String> forwarded = new ArrayList<>();
+            for (String header : request.getHeaders().getOrEmpty(FORWARDED_FOR_HEADER)) {
+                for (String address : StringUtils.tokenizeToStringArray(header, ",")) {
+                    forwarded.add(address);
+                }
+            }
+            if (forwarded.size() >= trustedProxies) {
+                return forwarded.get(forwarded.size() - trustedProxies);
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+
+    // the logins are compared ignoring the case, as the user service does
+    private String extractLogin(byte[] body, String loginField) {
+        if (!StringUtils.hasText(loginField)) {
+            String login = new String(body, StandardCharsets.UTF_8).trim();
+            return login.isEmpty() ? null : login.toLowerCase(Locale.ROOT);
+        }
+        try {
+            JsonNode login = objectMapper.readTree(body).path(loginField);
+            return login.isTextual() && !login.asText().trim().isEmpty() ? login.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // not JSON, left to the controller to reject
+            return null;
+        }
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, long waitNanos) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+        return response.setComplete();
+    }
+
+    private static class LimitedRoute {
+
+        private final PathPattern path;
+
+        private final String loginField;
+
+        private final Limit ipLimit;
+
+        private final Limit loginLimit;
+
+        LimitedRoute(PathPattern path, ApplicationProperties.RateLimit.Route route, int maxKeys, MeterRegistry meterRegistry) {
+            this.path = path;
+            this.loginField = route.getLoginField();
+            this.ipLimit = route.getIpLimit() > 0 ? new Limit(route, route.getIpLimit(), "ip", maxKeys, meterRegistry) : null;
+            this.loginLimit = route.getLoginLimit() > 0 ? new Limit(route, route.getLoginLimit(), "login", maxKeys, meterRegistry) : null;
+        }
+    }
+
+    private static class Limit {
+
+        private final long interval;
+
+        private final long tolerance;
+
+        private final Cache<String, Bucket> buckets;
+
+        private final Counter rejections;
+
+        Limit(ApplicationProperties.RateLimit.Route route, int limit, String kind, int maxKeys, MeterRegistry meterRegistry) {
+            long period = route.getPeriod().toNanos();
+            // a full bucket lets the whole limit through at once
+            this.interval = period / limit;
+            this.tolerance = interval * (limit - 1);
+            this.buckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(period, TimeUnit.NANOSECONDS).build();
+            this.rejections =
+                Counter
+                    .builder("rate.limit.rejected")
+                    .description("Number of requests rejected by the rate limiter")
+                    .tag("route", route.getPath())
+                    .tag("key", kind)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return 0 if the request is allowed, else the time to wait before the next one, in nanoseconds.
+         */
+        long tryAcquire(String key, long now) {
+            long wait = buckets.get(key, k -> new Bucket(now)).tryAcquire(now, interval, tolerance);
+            if (wait > 0) {
+                rejections.increment();
+            }
+            return wait;
+        }
+    }
+
+    /**
+     * A bucket of the generic cell rate algorithm, holding the theoretical arrival time of the next request.
+     */
+    static class Bucket {
+
+        private final AtomicLong arrival;
+
+        Bucket(long now) {
+            this.arrival = new AtomicLong(now);
+        }
+
+        /**
+         * Takes a token from the bucket.
+         *
+         * @param now the current time, from {@link System#nanoTime()}.
+         * @param interval the time after which a token is added to the bucket.
+         * @param tolerance the time during which the tokens of a full bucket can be taken at once.
+         * @return 0 if a token was taken, else the time to wait for the next one, in nanoseconds.
+         */
+        long tryAcquire(long now, long interval, long tolerance) {
+            while (true) {
+                long current = arrival.get();
+                long allowedAt = current - tolerance;
+                if (now - allowedAt < 0) {
+                    return allowedAt - now;
+                }
+                if (arrival.compareAndSet(current, (now - current > 0 ? now : current) + interval)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -1,28 +1,57 @@
 package com.zero.web.rest;
 
+import com.zero.config.ApplicationProperties;
 import com.zero.domain.Point;
+import com.zero.repository.KeysetCursor;
 import com.zero.repository.PointRepository;
+import com.zero.service.PointChangeService;
+import com.zero.service.PointExportService;
+import com.zero.service.PointImportService;
+import com.zero.service.dto.PointChangeDTO;
+import com.zero.service.dto.PointImportReportDTO;
 import com.zero.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.reactive.ResponseUtil;
+import tech.jhipster.web.util.PaginationUtil;
 
 /**
  * REST controller for managing {@link com.zero.domain.Point}.
@@ -36,13 +65,35 @@ public class PointResource {
 
     private static final String ENTITY_NAME = "point";
 
+    private static final List<String> ALLOWED_KEYSET_PROPERTIES = Collections.unmodifiableList(Arrays.asList("id", "title"));
+
+    private static final List<String> ALLOWED_FIELDS = Collections.unmodifiableList(Arrays.asList("id", "title", "description", "version"));
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final PointRepository pointRepository;
 
-    public PointResource(PointRepository pointRepository) {
+    private final ApplicationProperties applicationProperties;
+
+    private final PointImportService pointImportService;
+
+    private final PointChangeService pointChangeService;
+
+    private final PointExportService pointExportService;
+
+    public PointResource(
+        PointRepository pointRepository,
+        ApplicationProperties applicationProperties,
+        PointImportService pointImportService,
+        PointChangeService pointChangeService,
+        PointExportService pointExportService
+    ) {
         this.pointRepository = pointRepository;
+        this.applicationProperties = applicationProperties;
+        this.pointImportService = pointImportService;
+        this.pointChangeService = pointChangeService;
+        this.pointExportService = pointExportService;
     }
 
     /**
@@ -74,20 +125,80 @@ public class PointResource {
             );
     }
 
+    /**
+     * {@code POST  /points/bulk} : Create new points, sent as a JSON array or as newline delimited JSON.
+     * <p>
+     * The points are written with multi-row inserts of {@code application.point.batch-size} rows.
+     *
+     * @param points the points to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the ids of the new points, in the order of the request,
+     * or with status {@code 400 (Bad Request)} if a point is not valid or has already an ID.
+     */
+    @PostMapping(value = "/points/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public Mono<ResponseEntity<List<Long>>> createPoints(@Valid @RequestBody Flux<Point> points) {
+        log.debug("REST request to save Points in bulk");
+        return points
+            .doOnNext(
+                point -> {
+                    if (point.getId() != null) {
+                        throw new BadRequestAlertException("A new point cannot already have an ID", ENTITY_NAME, "idexists");
+                    }
+                }
+            )
+            .buffer(applicationProperties.getPoint().getBatchSize())
+            .concatMap(pointRepository::insertAll)
+            .map(Point::getId)
+            .collectList()
+            .map(
+                ids ->
+                    ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .headers(HeaderUtil.createAlert(applicationName, ids.size() + " points are created", String.valueOf(ids.size())))
+                        .body(ids)
+            );
+    }
+
+    /**
+     * {@code POST  /points/import} : Import points from a newline delimited JSON or a CSV file.
+     * <p>
+     * The file is streamed: the lines are validated and written in batches of {@code application.point.batch-size} rows,
+     * and a progress report is sent after each batch, once it is committed. Invalid lines are skipped and reported with their
+     * line number.
+     * A CSV file holds a title and an optional description per line, and may start with a {@code title,description} header.
+     *
+     * @param request a {@link ServerHttpRequest} request, whose body is the file to import.
+     * @return the {@link Flux} of progress reports.
+     */
+    @PostMapping(
+        value = "/points/import",
+        consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    // each batch is written by its own transaction
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<PointImportReportDTO> importPoints(ServerHttpRequest request) {
+        log.debug("REST request to import Points");
+        return pointImportService.importPoints(request.getBody(), request.getHeaders().getContentType());
+    }
+
     /**
      * {@code PUT  /points/:id} : Updates an existing point.
+     * <p>
+     * When the {@code If-Match} header holds the ETag of the point, the point is only updated if it has not been modified since.
      *
      * @param id the id of the point to save.
      * @param point the point to update.
+     * @param ifMatch the ETag of the point read by the client, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated point,
-     * or with status {@code 400 (Bad Request)} if the point is not valid,
-     * or with status {@code 500 (Internal Server Error)} if the point couldn't be updated.
+     * or with status {@code 400 (Bad Request)} if the point is not valid or is not found,
+     * or with status {@code 412 (Precondition Failed)} if the point has been modified since the ETag was read.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/points/{id}")
     public Mono<ResponseEntity<Point>> updatePoint(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody Point point
+        @Valid @RequestBody Point point,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Point : {}, {}", id, point);
         if (point.getId() == null) {
@@ -97,45 +208,38 @@ public class PointResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
+        Long expectedVersion = parseIfMatch(ifMatch);
         return pointRepository
-            .existsById(id)
-            .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    return pointRepository
-                        .save(point)
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            result ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString())
-                                    )
-                                    .body(result)
-                        );
-                }
+            .updateAndGet(point, expectedVersion)
+            .switchIfEmpty(Mono.defer(() -> updateFailure(id, expectedVersion)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .eTag(eTag(result))
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
             );
     }
 
     /**
      * {@code PATCH  /points/:id} : Partial updates given fields of an existing point, field will ignore if it is null
+     * <p>
+     * When the {@code If-Match} header holds the ETag of the point, the point is only updated if it has not been modified since.
      *
      * @param id the id of the point to save.
      * @param point the point to update.
+     * @param ifMatch the ETag of the point read by the client, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated point,
-     * or with status {@code 400 (Bad Request)} if the point is not valid,
-     * or with status {@code 404 (Not Found)} if the point is not found,
-     * or with status {@code 500 (Internal Server Error)} if the point couldn't be updated.
+     * or with status {@code 400 (Bad Request)} if the point is not valid or is not found,
+     * or with status {@code 412 (Precondition Failed)} if the point has been modified since the ETag was read.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/points/{id}", consumes = "application/merge-patch+json")
     public Mono<ResponseEntity<Point>> partialUpdatePoint(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody Point point
+        @NotNull @RequestBody Point point,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Point partially : {}, {}", id, point);
         if (point.getId() == null) {
@@ -145,77 +249,324 @@ public class PointResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
+        Long expectedVersion = parseIfMatch(ifMatch);
+        return pointRepository
+            .partialUpdateAndGet(point, expectedVersion)
+            .switchIfEmpty(Mono.defer(() -> updateFailure(id, expectedVersion)))
+            .map(
+                result ->
+                    ResponseEntity
+                        .ok()
+                        .eTag(eTag(result))
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                        .body(result)
+            );
+    }
+
+    /**
+     * Reads the version expected by an update from its {@code If-Match} header.
+     * @return the version, or null if the update is not conditional.
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not the ETag of a point
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match doesn't hold the ETag of a point");
+    }
+
+    /**
+     * The update didn't match any row: either the point doesn't exist, or its version is not the expected one anymore.
+     */
+    private Mono<Point> updateFailure(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        }
         return pointRepository
             .existsById(id)
             .flatMap(
-                exists -> {
-                    if (!exists) {
-                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                    }
-
-                    Mono<Point> result = pointRepository
-                        .findById(point.getId())
-                        .map(
-                            existingPoint -> {
-                                if (point.getTitle() != null) {
-                                    existingPoint.setTitle(point.getTitle());
-                                }
-                                if (point.getDescription() != null) {
-                                    existingPoint.setDescription(point.getDescription());
-                                }
-
-                                return existingPoint;
-                            }
-                        )
-                        .flatMap(pointRepository::save);
-
-                    return result
-                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                        .map(
-                            res ->
-                                ResponseEntity
-                                    .ok()
-                                    .headers(
-                                        HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString())
-                                    )
-                                    .body(res)
-                        );
-                }
+                exists ->
+                    Mono.error(
+                        exists
+                            ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The point has been modified")
+                            : new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")
+                    )
             );
     }
 
+    private static String eTag(Point point) {
+        return "\"" + point.getVersion() + "\"";
+    }
+
+    private static String eTag(List<Point> points, Collection<String> fields) {
+        StringBuilder versions = new StringBuilder();
+        // the representations holding fewer fields are different ones, whatever the order of the fields in the request
+        if (!fields.containsAll(ALLOWED_FIELDS)) {
+            versions.append(String.join(",", new TreeSet<>(fields))).append(';');
+        }
+        for (Point point : points) {
+            versions.append(point.getId()).append(':').append(point.getVersion()).append(',');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
     /**
      * {@code GET  /points} : get all the points.
+     * <p>
+     * When the {@code size} or the {@code after} parameter is set, the points are read with keyset pagination: the body holds at
+     * most {@code size} points, and the {@code Link} header holds the url of the next page, with its cursor in the {@code after} parameter.
+     * The response holds an ETag computed from the ids and versions of the points, for conditional requests.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of points in body.
+     * @param request a {@link ServerHttpRequest} request.
+     * @param pageable the pagination information, only the size and the first sort order are used.
+     * @param after the cursor of the previous page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of points in body,
+     * or with status {@code 400 (Bad Request)} if the sort order or the cursor is not valid.
      */
     @GetMapping("/points")
-    public Mono<List<Point>> getAllPoints() {
+    public Mono<ResponseEntity<List<Point>>> getAllPoints(
+        ServerHttpRequest request,
+        Pageable pageable,
+        @RequestParam(value = "after", required = false) String after
+    ) {
         log.debug("REST request to get all Points");
-        return pointRepository.findAll().collectList();
+        return findPoints(request, pageable, after, ALLOWED_FIELDS);
     }
 
     /**
-     * {@code GET  /points} : get all the points as a stream.
+     * {@code GET  /points?fields=} : get all the points, with only some of their fields.
+     * <p>
+     * Only the columns of the selected fields are read from the database, and only the selected fields are sent: a list of
+     * titles doesn't carry the descriptions. The pagination and the ETag work as for {@link #getAllPoints}.
+     *
+     * @param request a {@link ServerHttpRequest} request.
+     * @param pageable the pagination information, only the size and the first sort order are used.
+     * @param after the cursor of the previous page.
+     * @param fields the comma separated names of the selected fields, among {@code id}, {@code title}, {@code description} and
+     * {@code version}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of the selected fields of the points in body,
+     * or with status {@code 400 (Bad Request)} if a field, the sort order or the cursor is not valid.
+     */
+    @GetMapping(value = "/points", params = { "fields", "!ids" })
+    public Mono<ResponseEntity<List<Map<String, Object>>>> getAllPointsFields(
+        ServerHttpRequest request,
+        Pageable pageable,
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam String fields
+    ) {
+        log.debug("REST request to get the fields {} of all Points", fields);
+        Set<String> selectedFields = SparseFieldset.parse(fields, ALLOWED_FIELDS, ENTITY_NAME);
+        return findPoints(request, pageable, after, selectedFields)
+            .map(
+                response -> {
+                    List<Map<String, Object>> body = null;
+                    if (response.getBody() != null) {
+                        body =
+                            response
+                                .getBody()
+                                .stream()
+                                .map(point -> SparseFieldset.project(point, selectedFields))
+                                .collect(Collectors.toList());
+                    }
+                    return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(body);
+                }
+            );
+    }
+
+    private Mono<ResponseEntity<List<Point>>> findPoints(ServerHttpRequest request, Pageable pageable, String after, Set<String> fields) {
+        // the id and the version are always read, for the ETag
+        Set<String> readFields = new HashSet<>(fields);
+        readFields.add("id");
+        readFields.add("version");
+        if (after == null && !request.getQueryParams().containsKey("size")) {
+            return pointRepository
+                .findAllBy(null, null, readFields)
+                .collectList()
+                .map(points -> ResponseEntity.ok().eTag(eTag(points, fields)).body(points));
+        }
+
+        KeysetCursor cursor = null;
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (after != null) {
+            try {
+                cursor = KeysetCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+            }
+            order = cursor.getOrder();
+            if (!"id".equals(order.getProperty()) && cursor.getValue() == null) {
+                throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+            }
+        }
+        if (!ALLOWED_KEYSET_PROPERTIES.contains(order.getProperty())) {
+            throw new BadRequestAlertException("Invalid sort property", ENTITY_NAME, "sortinvalid");
+        }
+        // the sorted property is read for the cursor of the next page
+        readFields.add(order.getProperty());
+
+        Sort.Order keysetOrder = order;
+        int size = pageable.getPageSize();
+        return pointRepository
+            .findAllByKeyset(keysetOrder, cursor, size + 1, readFields)
+            .collectList()
+            .map(
+                points -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    if (points.size() <= size) {
+                        return ResponseEntity.ok().headers(headers).eTag(eTag(points, fields)).body(points);
+                    }
+                    List<Point> page = points.subList(0, size);
+                    Point last = page.get(size - 1);
+                    String value = "title".equals(keysetOrder.getProperty()) ? last.getTitle() : null;
+                    String nextCursor = KeysetCursor.of(keysetOrder, value, last.getId()).encode();
+                    String next = UriComponentsBuilder
+                        .fromHttpRequest(request)
+                        .replaceQueryParam("page")
+                        .replaceQueryParam("after", nextCursor)
+                        .toUriString();
+                    headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    return ResponseEntity.ok().headers(headers).eTag(eTag(page, fields)).body(page);
+                }
+            );
+    }
+
+    /**
+     * {@code GET  /points} : get all the points as a stream, of JSON or Smile values.
      * @return the {@link Flux} of points.
      */
-    @GetMapping(value = "/points", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @GetMapping(value = "/points", produces = { MediaType.APPLICATION_NDJSON_VALUE, "application/stream+x-jackson-smile" })
     public Flux<Point> getAllPointsAsStream() {
         log.debug("REST request to get all Points as a stream");
         return pointRepository.findAll();
     }
 
+    /**
+     * {@code GET  /points/export} : export all the points as a CSV file.
+     * <p>
+     * The file is streamed as the rows are read, and compressed when the server compression is enabled for {@code text/csv}.
+     *
+     * @param response the {@link ServerHttpResponse} response, whose buffers hold the file.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the CSV file in body.
+     */
+    @GetMapping(value = "/points/export", produces = "text/csv")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportPoints(ServerHttpResponse response) {
+        log.debug("REST request to export Points");
+        return Mono.just(
+            ResponseEntity
+                .ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("points.csv").build().toString())
+                .body(pointExportService.exportPoints(response.bufferFactory()))
+        );
+    }
+
+    /**
+     * {@code GET  /points/changes} : get the changes of the points as server-sent events.
+     * <p>
+     * The id of each event is the position of the change in the feed of the instance: a client reconnecting with a
+     * {@code Last-Event-ID} header gets the changes it missed, or a {@code reset} event if they are not known anymore, or if
+     * it reconnects to another instance.
+     *
+     * @param lastEventId the id of the last event received by the client, if any.
+     * @return the {@link Flux} of {@code created}, {@code updated}, {@code deleted} and {@code reset} events.
+     */
+    @GetMapping(value = "/points/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<ServerSentEvent<PointChangeDTO>> getPointChanges(
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        log.debug("REST request to get the changes of Points after {}", lastEventId);
+        return pointChangeService.changes(lastEventId);
+    }
+
+    /**
+     * {@code SEARCH  /_search/points?q=:query} : search the points whose title or description match the query,
+     * the best matches first.
+     *
+     * @param request a {@link ServerHttpRequest} request.
+     * @param q the query of the search.
+     * @param pageable the pagination information, the sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page of points in body.
+     */
+    @GetMapping("/_search/points")
+    public Mono<ResponseEntity<List<Point>>> searchPoints(ServerHttpRequest request, @RequestParam String q, Pageable pageable) {
+        log.debug("REST request to search for a page of Points for query {}", q);
+        return Mono
+            .zip(pointRepository.countSearch(q), pointRepository.search(q, pageable).collectList())
+            .map(
+                result -> {
+                    HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
+                        UriComponentsBuilder.fromHttpRequest(request),
+                        new PageImpl<>(result.getT2(), pageable, result.getT1())
+                    );
+                    return ResponseEntity.ok().headers(headers).body(result.getT2());
+                }
+            );
+    }
+
+    /**
+     * {@code GET  /points?ids=} : get the points of the given ids, with a single query.
+     *
+     * @param ids the ids of the points, at most {@code application.point.max-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and in body the points in the order of the ids, with
+     * {@code null} for the ids of no point, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @GetMapping(value = "/points", params = "ids")
+    public Mono<ResponseEntity<List<Point>>> getPointsByIds(@RequestParam List<Long> ids) {
+        log.debug("REST request to get {} Points by id", ids.size());
+        return findPointsByIds(ids);
+    }
+
+    /**
+     * {@code POST  /points/lookup} : get the points of the given ids, for the lists of ids too long for a query string.
+     *
+     * @param ids the ids of the points, at most {@code application.point.max-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and in body the points in the order of the ids, with
+     * {@code null} for the ids of no point, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @PostMapping("/points/lookup")
+    public Mono<ResponseEntity<List<Point>>> lookupPoints(@RequestBody List<Long> ids) {
+        log.debug("REST request to look up {} Points by id", ids.size());
+        return findPointsByIds(ids);
+    }
+
+    private Mono<ResponseEntity<List<Point>>> findPointsByIds(List<Long> ids) {
+        if (ids.size() > applicationProperties.getPoint().getMaxIds()) {
+            throw new BadRequestAlertException("Too many ids", ENTITY_NAME, "toomanyids");
+        }
+        if (ids.contains(null)) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        return pointRepository
+            .findByIds(new LinkedHashSet<>(ids))
+            .collectMap(Point::getId)
+            .map(pointsById -> ResponseEntity.ok(ids.stream().map(pointsById::get).collect(Collectors.toList())));
+    }
+
     /**
      * {@code GET  /points/:id} : get the "id" point.
+     * <p>
+     * The response holds the ETag of the point: a request whose {@code If-None-Match} header holds it gets a
+     * {@code 304 (Not Modified)} response without body, as long as the point is not modified.
      *
      * @param id the id of the point to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the point, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/points/{id}")
+    // no transaction, which would hold a connection while the lookup waits for its batch
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Mono<ResponseEntity<Point>> getPoint(@PathVariable Long id) {
         log.debug("REST request to get Point : {}", id);
-        Mono<Point> point = pointRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(point);
+        return pointRepository
+            .findById(id)
+            .map(point -> ResponseEntity.ok().eTag(eTag(point)).body(point))
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.zero.web.rest;
 
+import com.zero.service.AuthorityRegistry;
 import com.zero.service.UserService;
 import com.zero.service.dto.UserDTO;
 import java.util.ArrayList;
@@ -33,8 +34,11 @@ public class PublicUserResource {
 
     private final UserService userService;
 
-    public PublicUserResource(UserService userService) {
+    private final AuthorityRegistry authorityRegistry;
+
+    public PublicUserResource(UserService userService, AuthorityRegistry authorityRegistry) {
         this.userService = userService;
+        this.authorityRegistry = authorityRegistry;
     }
 
     /**
@@ -64,10 +68,15 @@ public class PublicUserResource {
 
     /**
      * Gets a list of all roles.
+     * <p>
+     * The roles are served from memory, with an ETag: a request whose {@code If-None-Match} header holds it gets a
+     * {@code 304 (Not Modified)} response.
      * @return a string list of all roles.
      */
     @GetMapping("/authorities")
-    public Mono<List<String>> getAuthorities() {
-        return userService.getAuthorities().collectList();
+    public Mono<ResponseEntity<List<String>>> getAuthorities() {
+        return authorityRegistry
+            .getSnapshot()
+            .map(authorities -> ResponseEntity.ok().eTag(authorities.getETag()).body(authorities.getNames()));
     }
 }
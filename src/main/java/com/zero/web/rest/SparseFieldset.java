@@ -0,0 +1,61 @@
+package com.zero.web.rest;
+
+import com.zero.web.rest.errors.BadRequestAlertException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+
+/**
+ * Utility class for the {@code fields} parameter of the list endpoints, which limits the returned properties.
+ */
+final class SparseFieldset {
+
+    private SparseFieldset() {}
+
+    /**
+     * Parses the value of a {@code fields} parameter.
+     *
+     * @param fields the comma separated names of the properties.
+     * @param allowedFields the names of the properties which can be selected.
+     * @param entityName the name of the entity, for the error message.
+     * @return the names of the selected properties, in the requested order.
+     * @throws BadRequestAlertException if no property is selected, or if a property can't be selected.
+     */
+    static Set<String> parse(String fields, Collection<String> allowedFields, String entityName) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowedFields.contains(name)) {
+                throw new BadRequestAlertException("Unknown field " + name, entityName, "fieldinvalid");
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new BadRequestAlertException("No field selected", entityName, "fieldinvalid");
+        }
+        return selected;
+    }
+
+    /**
+     * Copies the selected properties of a bean, so that the other properties are not serialized.
+     *
+     * @param bean the bean.
+     * @param fields the names of the selected properties.
+     * @return the values of the selected properties, in the order of the fields.
+     */
+    static Map<String, Object> project(Object bean, Set<String> fields) {
+        BeanWrapper wrapper = new BeanWrapperImpl(bean);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            values.put(field, wrapper.getPropertyValue(field));
+        }
+        return values;
+    }
+}
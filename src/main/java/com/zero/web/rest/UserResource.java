@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
 import org.slf4j.Logger;
@@ -68,6 +70,24 @@ public class UserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    private static final List<String> ALLOWED_FIELDS = Collections.unmodifiableList(
+        Arrays.asList(
+            "id",
+            "login",
+            "firstName",
+            "lastName",
+            "email",
+            "imageUrl",
+            "activated",
+            "langKey",
+            "createdBy",
+            "createdDate",
+            "lastModifiedBy",
+            "lastModifiedDate",
+            "authorities"
+        )
+    );
+
     private final Logger log = LoggerFactory.getLogger(UserResource.class);
 
     @Value("${jhipster.clientApp.name}")
@@ -105,21 +125,18 @@ public class UserResource {
             throw new BadRequestAlertException("A new user cannot already have an ID", "userManagement", "idexists");
             // Lowercase the user login before comparing with database
         }
+        // the login and the email are checked with a single query
+        String login = userDTO.getLogin();
+        String email = userDTO.getEmail();
         return userRepository
-            .findOneByLogin(userDTO.getLogin().toLowerCase())
-            .hasElement()
+            .findAllByLoginOrEmailIgnoreCase(login, email)
+            .collectList()
             .flatMap(
-                loginExists -> {
-                    if (Boolean.TRUE.equals(loginExists)) {
+                existingUsers -> {
+                    if (existingUsers.stream().anyMatch(user -> login.equalsIgnoreCase(user.getLogin()))) {
                         return Mono.error(new LoginAlreadyUsedException());
                     }
-                    return userRepository.findOneByEmailIgnoreCase(userDTO.getEmail());
-                }
-            )
-            .hasElement()
-            .flatMap(
-                emailExists -> {
-                    if (Boolean.TRUE.equals(emailExists)) {
+                    if (existingUsers.stream().anyMatch(user -> email != null && email.equalsIgnoreCase(user.getEmail()))) {
                         return Mono.error(new EmailAlreadyUsedException());
                     }
                     return userService.createUser(userDTO);
@@ -152,23 +169,19 @@ public class UserResource {
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
     public Mono<ResponseEntity<AdminUserDTO>> updateUser(@Valid @RequestBody AdminUserDTO userDTO) {
         log.debug("REST request to update User : {}", userDTO);
+        // the login and the email are checked with a single query
+        String login = userDTO.getLogin();
+        String email = userDTO.getEmail();
         return userRepository
-            .findOneByEmailIgnoreCase(userDTO.getEmail())
+            .findAllByLoginOrEmailIgnoreCase(login, email)
             .filter(user -> !user.getId().equals(userDTO.getId()))
-            .hasElement()
+            .collectList()
             .flatMap(
-                emailExists -> {
-                    if (Boolean.TRUE.equals(emailExists)) {
+                existingUsers -> {
+                    if (existingUsers.stream().anyMatch(user -> email != null && email.equalsIgnoreCase(user.getEmail()))) {
                         return Mono.error(new EmailAlreadyUsedException());
                     }
-                    return userRepository.findOneByLogin(userDTO.getLogin().toLowerCase());
-                }
-            )
-            .filter(user -> !user.getId().equals(userDTO.getId()))
-            .hasElement()
-            .flatMap(
-                loginExists -> {
-                    if (Boolean.TRUE.equals(loginExists)) {
+                    if (existingUsers.stream().anyMatch(user -> login.equalsIgnoreCase(user.getLogin()))) {
                         return Mono.error(new LoginAlreadyUsedException());
                     }
                     return userService.updateUser(userDTO);
@@ -206,6 +219,41 @@ public class UserResource {
             .map(headers -> ResponseEntity.ok().headers(headers).body(userService.getAllManagedUsers(pageable)));
     }
 
+    /**
+     * {@code GET /admin/users?fields=} : get all users with only some of their details - calling this are only allowed for the
+     * administrators.
+     * <p>
+     * Only the columns of the selected fields are read, and the authorities only when they are selected.
+     *
+     * @param request a {@link ServerHttpRequest} request.
+     * @param pageable the pagination information.
+     * @param fields the comma separated names of the selected fields.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the selected fields of the users,
+     * or with status {@code 400 (Bad Request)} if a field or the sort order is not valid.
+     */
+    @GetMapping(value = "/users", params = "fields")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public Mono<ResponseEntity<Flux<Map<String, Object>>>> getAllUsersFields(
+        ServerHttpRequest request,
+        Pageable pageable,
+        @RequestParam String fields
+    ) {
+        log.debug("REST request to get the fields {} of all User for an admin", fields);
+        Set<String> selectedFields = SparseFieldset.parse(fields, ALLOWED_FIELDS, "userManagement");
+        if (!onlyContainsAllowedProperties(pageable)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        Flux<Map<String, Object>> users = userService
+            .getAllManagedUsers(pageable, selectedFields)
+            .map(user -> SparseFieldset.project(user, selectedFields));
+        return userService
+            .countManagedUsers()
+            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+            .map(page -> PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
+            .map(headers -> ResponseEntity.ok().headers(headers).body(users));
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
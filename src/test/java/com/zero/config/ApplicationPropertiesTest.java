@@ -0,0 +1,33 @@
+package com.zero.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Unit tests for the validation of the {@link ApplicationProperties}.
+ */
+class ApplicationPropertiesTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(PropertiesConfiguration.class);
+
+    @Test
+    void testDefaultBatchSizeIsValid() {
+        contextRunner.run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void testBatchSizeMustBePositive() {
+        contextRunner
+            .withPropertyValues("application.point.batch-size=0")
+            .run(context -> assertThat(context).getFailure().hasStackTraceContaining("batchSize"));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    static class PropertiesConfiguration {}
+}
@@ -0,0 +1,93 @@
+package com.zero.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zero.domain.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for the {@link CodecConfiguration} codecs, comparing the size and the encoding time of a list of points
+ * in JSON, CBOR and Smile.
+ */
+class CodecConfigurationTest {
+
+    private static final int POINT_COUNT = 10_000;
+
+    private static final ResolvableType POINT_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class, Point.class);
+
+    private final Logger log = LoggerFactory.getLogger(CodecConfigurationTest.class);
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private ObjectMapper cborMapper;
+
+    private List<Point> points;
+
+    @BeforeEach
+    public void setup() {
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        points = new ArrayList<>();
+        for (long id = 1; id <= POINT_COUNT; id++) {
+            points.add(new Point().id(id).title("Point title number " + id).description("A description of the point " + id).version(0L));
+        }
+    }
+
+    @Test
+    void assertThatBinaryFormatsAreSmallerThanJson() {
+        int json = encode("JSON", new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build()), MediaType.APPLICATION_JSON);
+        int cbor = encode("CBOR", new CodecConfiguration.CollectingJackson2CborEncoder(cborMapper), MediaType.APPLICATION_CBOR);
+        int smile = encode(
+            "Smile",
+            new Jackson2SmileEncoder(Jackson2ObjectMapperBuilder.smile().build()),
+            MediaType.valueOf("application/x-jackson-smile")
+        );
+
+        assertThat(cbor).isLessThan(json);
+        assertThat(smile).isLessThan(json);
+    }
+
+    @Test
+    void assertThatCborEncoderWritesFluxAsArray() throws Exception {
+        CodecConfiguration.CollectingJackson2CborEncoder encoder = new CodecConfiguration.CollectingJackson2CborEncoder(cborMapper);
+        ResolvableType pointType = ResolvableType.forClass(Point.class);
+        DataBuffer buffer = DataBufferUtils
+            .join(encoder.encode(Flux.fromIterable(points), bufferFactory, pointType, MediaType.APPLICATION_CBOR, Collections.emptyMap()))
+            .block();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+
+        List<Point> decoded = cborMapper.readValue(bytes, new TypeReference<List<Point>>() {});
+
+        assertThat(decoded).hasSize(POINT_COUNT);
+        assertThat(decoded.get(0).getTitle()).isEqualTo(points.get(0).getTitle());
+    }
+
+    private int encode(String format, Encoder<Object> encoder, MediaType mediaType) {
+        // the first encoding warms the serializers up
+        encoder.encodeValue(points, bufferFactory, POINT_LIST_TYPE, mediaType, Collections.emptyMap());
+        long start = System.nanoTime();
+        DataBuffer buffer = encoder.encodeValue(points, bufferFactory, POINT_LIST_TYPE, mediaType, Collections.emptyMap());
+        long elapsed = System.nanoTime() - start;
+        int size = buffer.readableByteCount();
+        log.info("{} points in {}: {} bytes, encoded in {} µs", POINT_COUNT, format, size, elapsed / 1000);
+        return size;
+    }
+}
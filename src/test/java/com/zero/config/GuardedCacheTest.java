@@ -0,0 +1,64 @@
+package com.zero.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link GuardedCache}.
+ */
+class GuardedCacheTest {
+
+    private GuardedCache cache;
+
+    @BeforeEach
+    public void setup() {
+        cache = new GuardedCache("test", Caffeine.newBuilder().build(), false);
+    }
+
+    @Test
+    void testValueReadBeforeEvictionIsNotPut() {
+        long stamp = cache.stamp(1L);
+        cache.evict(1L);
+
+        cache.putIfNotEvicted(1L, "old", stamp, (cached, loaded) -> loaded);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void testValueReadBeforeClearIsNotPut() {
+        long stamp = cache.stamp(1L);
+        cache.clear();
+
+        cache.putIfNotEvicted(1L, "old", stamp, (cached, loaded) -> loaded);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void testValueReadAfterEvictionIsPut() {
+        cache.evict(1L);
+        long stamp = cache.stamp(1L);
+
+        cache.putIfNotEvicted(1L, "new", stamp, (cached, loaded) -> loaded);
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("new");
+    }
+
+    @Test
+    void testRemappingChoosesBetweenCachedAndLoadedValues() {
+        cache.putIfNotEvicted(1L, "v2", cache.stamp(1L), (cached, loaded) -> loaded);
+
+        cache.putIfNotEvicted(
+            1L,
+            "v1",
+            cache.stamp(1L),
+            (cached, loaded) -> ((String) cached).compareTo((String) loaded) > 0 ? cached : loaded
+        );
+
+        assertThat(cache.get(1L, String.class)).isEqualTo("v2");
+    }
+}
@@ -0,0 +1,122 @@
+package com.zero.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for the {@link BatchLoader}.
+ */
+class BatchLoaderTest {
+
+    private final List<List<Long>> queries = new CopyOnWriteArrayList<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        queries.clear();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getBatching().setWindow(Duration.ofMillis(50));
+        applicationProperties.getBatching().setMaxBatchSize(3);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private BatchLoader<Long, String> createLoader() {
+        return new BatchLoader<>(
+            "test",
+            this::load,
+            value -> Long.valueOf(value.substring(1)),
+            value -> new String(value),
+            applicationProperties,
+            meterRegistry
+        );
+    }
+
+    // only the even keys have a value
+    private Flux<String> load(Collection<Long> keys) {
+        queries.add(new ArrayList<>(keys));
+        return Flux.fromIterable(keys).filter(key -> key % 2 == 0).map(key -> "v" + key);
+    }
+
+    @Test
+    void assertThatConcurrentLookupsAreBatched() {
+        BatchLoader<Long, String> loader = createLoader();
+
+        List<String> values = Flux
+            .just(2L, 1L, 2L)
+            .flatMapSequential(key -> loader.load(key).defaultIfEmpty("none"))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(values).containsExactly("v2", "none", "v2");
+        assertThat(queries).containsExactly(Arrays.asList(2L, 1L));
+        assertThat(meterRegistry.get("batch.loader.shared").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batch.loader.size").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void assertThatFullBatchIsSentWithoutWaiting() {
+        applicationProperties.getBatching().setWindow(Duration.ofMinutes(1));
+        BatchLoader<Long, String> loader = createLoader();
+
+        List<String> values = Flux
+            .just(2L, 4L, 6L)
+            .flatMapSequential(loader::load)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(values).containsExactly("v2", "v4", "v6");
+        assertThat(queries).hasSize(1);
+    }
+
+    @Test
+    void assertThatEachCallerGetsItsOwnValue() {
+        BatchLoader<Long, String> loader = createLoader();
+
+        List<String> values = Mono.zip(loader.load(2L), loader.load(2L)).map(Arrays::asList).block(Duration.ofSeconds(5));
+
+        assertThat(values.get(0)).isEqualTo(values.get(1)).isNotSameAs(values.get(1));
+        assertThat(queries.stream().flatMap(List::stream).collect(Collectors.toList())).containsExactly(2L);
+    }
+
+    @Test
+    void assertThatLookupAfterQueryIsSentGetsItsOwnQuery() {
+        applicationProperties.getBatching().setMaxBatchSize(1);
+        Sinks.Empty<Void> release = Sinks.empty();
+        BatchLoader<Long, String> loader = new BatchLoader<>(
+            "test",
+            keys -> release.asMono().thenMany(load(keys)),
+            value -> Long.valueOf(value.substring(1)),
+            value -> new String(value),
+            applicationProperties,
+            meterRegistry
+        );
+
+        CompletableFuture<String> first = loader.load(2L).toFuture();
+        CompletableFuture<String> second = loader.load(2L).toFuture();
+        release.tryEmitEmpty();
+
+        assertThat(first.join()).isEqualTo("v2");
+        assertThat(second.join()).isEqualTo("v2");
+        assertThat(queries).containsExactly(Collections.singletonList(2L), Collections.singletonList(2L));
+        assertThat(meterRegistry.get("batch.loader.shared").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,42 @@
+package com.zero.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BloomFilter}.
+ */
+class BloomFilterTest {
+
+    @Test
+    void testAddedValuesAreAlwaysContained() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("login:user-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("login:user-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateIsCloseToExpectedRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("email:user-" + i + "@localhost");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("email:bot-" + i + "@localhost")) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+        assertThat(filter.sizeInBytes()).isBetween(10_000L, 13_000L);
+    }
+}
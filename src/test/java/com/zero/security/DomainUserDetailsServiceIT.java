@@ -2,18 +2,25 @@ package com.zero.security;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.zero.IntegrationTest;
+import com.zero.config.ApplicationProperties;
 import com.zero.config.Constants;
 import com.zero.domain.User;
+import com.zero.repository.UserExistenceFilter;
 import com.zero.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Locale;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 /**
  * Integrations tests for {@link DomainUserDetailsService}.
@@ -31,11 +38,30 @@ class DomainUserDetailsServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private ReactiveUserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @AfterEach
+    public void disableUserFilter() {
+        applicationProperties.getUserFilter().setEnabled(false);
+    }
+
     @BeforeEach
     public void init() {
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
 
@@ -113,4 +139,50 @@ class DomainUserDetailsServiceIT {
         assertThatExceptionOfType(UserNotActivatedException.class)
             .isThrownBy(() -> domainUserDetailsService.findByUsername(USER_THREE_LOGIN).block());
     }
+
+    @Test
+    void assertThatUnknownUserIsNotLookedUpOnceFilterIsBuilt() {
+        applicationProperties.getUserFilter().setEnabled(true);
+        userExistenceFilter.rebuild().block();
+        double absentLookups = meterRegistry.get("user.filter.absent").counter().count();
+
+        assertThatThrownBy(() -> domainUserDetailsService.findByUsername("unknown-login").block())
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> domainUserDetailsService.findByUsername("unknown@localhost").block())
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(meterRegistry.get("user.filter.absent").counter().count()).isEqualTo(absentLookups + 2);
+
+        UserDetails userDetails = domainUserDetailsService.findByUsername(USER_ONE_EMAIL.toUpperCase(Locale.ENGLISH)).block();
+        assertThat(userDetails).isNotNull();
+        assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
+    }
+
+    @Test
+    void assertThatUserSavedAfterFilterIsBuiltIsFound() {
+        applicationProperties.getUserFilter().setEnabled(true);
+        userExistenceFilter.rebuild().block();
+        User userFour = new User();
+        userFour.setLogin("test-user-four");
+        userFour.setPassword(RandomStringUtils.random(60));
+        userFour.setActivated(true);
+        userFour.setEmail("test-user-four@localhost");
+        userFour.setFirstName("userFour");
+        userFour.setLastName("doe");
+        userFour.setLangKey("en");
+        userFour.setCreatedBy(Constants.SYSTEM);
+        userRepository.save(userFour).block();
+
+        assertThat(domainUserDetailsService.findByUsername("test-user-four").block()).isNotNull();
+        assertThat(domainUserDetailsService.findByUsername("test-user-four@localhost").block()).isNotNull();
+    }
+
+    @Test
+    void assertThatUnknownUserIsLookedUpWhenFilterIsDisabled() {
+        userExistenceFilter.rebuild().block();
+        double absentLookups = meterRegistry.get("user.filter.absent").counter().count();
+
+        assertThatThrownBy(() -> domainUserDetailsService.findByUsername("unknown-login").block())
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(meterRegistry.get("user.filter.absent").counter().count()).isEqualTo(absentLookups);
+    }
 }
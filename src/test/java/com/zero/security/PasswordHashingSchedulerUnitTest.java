@@ -0,0 +1,85 @@
+package com.zero.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link PasswordHashingScheduler}.
+ */
+class PasswordHashingSchedulerUnitTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingScheduler passwordHashingScheduler;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPasswordHashing().setThreads(1);
+        applicationProperties.getPasswordHashing().setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingScheduler = new PasswordHashingScheduler(applicationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        passwordHashingScheduler.shutdown();
+    }
+
+    @Test
+    void testHashingRunsOnDedicatedThread() {
+        String thread = passwordHashingScheduler.hash(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5));
+
+        assertThat(thread).startsWith("password-hashing-");
+        assertThat(meterRegistry.get("password.hashing.duration").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("password.hashing.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testHashingIsRejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        passwordHashingScheduler
+            .scheduler()
+            .schedule(
+                () -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            );
+        running.await();
+        passwordHashingScheduler.scheduler().schedule(() -> {});
+        assertThat(meterRegistry.get("password.hashing.queue").gauge().value()).isEqualTo(1);
+
+        try {
+            assertThatThrownBy(() -> passwordHashingScheduler.hash(() -> "hash").block(Duration.ofSeconds(5)))
+                .isInstanceOf(PasswordHashingRejectedException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testResultIsNotPublishedOnHashingThread() {
+        String thread = passwordHashingScheduler
+            .hash(() -> "hash")
+            .map(hash -> Thread.currentThread().getName())
+            .block(Duration.ofSeconds(5));
+
+        assertThat(thread).doesNotStartWith("password-hashing-");
+    }
+}
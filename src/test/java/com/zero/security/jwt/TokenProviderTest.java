@@ -83,6 +83,42 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testValidAuthenticationIsParsedOnce() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Optional<Authentication> authentication = tokenProvider.getValidAuthentication(token);
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getName()).isEqualTo("anonymous");
+        assertThat(authentication.get().getCredentials()).isEqualTo(token);
+        Authentication cached = tokenProvider.getValidAuthentication(token).get();
+        assertThat(cached.getPrincipal()).isSameAs(authentication.get().getPrincipal());
+        assertThat(cached.getCredentials()).isEqualTo(token);
+    }
+
+    @Test
+    void testValidAuthenticationSharesAuthorities() {
+        Authentication first = tokenProvider.getValidAuthentication(tokenProvider.createToken(createAuthentication(), false)).get();
+        Authentication second = tokenProvider.getValidAuthentication(tokenProvider.createToken(createAuthentication(), true)).get();
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.getAuthorities().iterator().next()).isSameAs(second.getAuthorities().iterator().next());
+    }
+
+    @Test
+    void testValidAuthenticationIsEmptyWhenJWTisExpired() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isEmpty();
+    }
+
+    @Test
+    void testValidAuthenticationIsEmptyWhenJWThasInvalidSignature() {
+        assertThat(tokenProvider.getValidAuthentication(createTokenWithDifferentSignature())).isEmpty();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
@@ -0,0 +1,88 @@
+package com.zero.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.zero.IntegrationTest;
+import com.zero.domain.Point;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.sql.Column;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Table;
+
+/**
+ * Integration tests for {@link EntityManager}.
+ */
+@IntegrationTest
+class EntityManagerIT {
+
+    private static final Table TABLE = Table.aliased("point", EntityManager.ENTITY_ALIAS);
+
+    private static final List<Expression> COLUMNS = Arrays.asList(
+        Column.aliased("id", TABLE, "e_id"),
+        Column.aliased("title", TABLE, "e_title")
+    );
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void assertThatSelectIsParameterized() {
+        EntityManager.BoundSelect first = entityManager.createSelect(TABLE, COLUMNS, Point.class, null, where("id").is(1L));
+        EntityManager.BoundSelect second = entityManager.createSelect(TABLE, COLUMNS, Point.class, null, where("id").is(2L));
+
+        assertThat(first.getSql()).isSameAs(second.getSql());
+        assertThat(first.getSql()).endsWith(" WHERE e.id = :p0");
+        assertThat(first.getBindings()).containsEntry("p0", 1L);
+        assertThat(second.getBindings()).containsEntry("p0", 2L);
+    }
+
+    @Test
+    void assertThatSelectsOfOtherColumnsAreNotShared() {
+        List<Expression> otherColumns = Arrays.asList(
+            Column.aliased("id", TABLE, "e_id"),
+            Column.aliased("description", TABLE, "e_description")
+        );
+
+        EntityManager.BoundSelect first = entityManager.createSelect(TABLE, COLUMNS, Point.class, null, where("id").is(1L));
+        EntityManager.BoundSelect second = entityManager.createSelect(TABLE, otherColumns, Point.class, null, where("id").is(1L));
+
+        assertThat(first.getSql()).contains("e.title AS e_title").doesNotContain("e_description");
+        assertThat(second.getSql()).contains("e.description AS e_description").doesNotContain("e_title");
+    }
+
+    @Test
+    void assertThatSelectRendersCriteriaSortAndPage() {
+        EntityManager.BoundSelect select = entityManager.createSelect(
+            TABLE,
+            COLUMNS,
+            Point.class,
+            PageRequest.of(2, 10, Sort.by("title").descending()),
+            where("title").like("A%").and(where("description").isNull().or("id").in(1L, 2L))
+        );
+
+        assertThat(select.getSql())
+            .endsWith(
+                " WHERE e.title LIKE :p0 AND (e.description IS NULL OR e.id IN (:p1))" + " ORDER BY e.title DESC LIMIT :limit OFFSET :offset"
+            );
+        assertThat(select.getBindings())
+            .containsEntry("p0", "A%")
+            .containsEntry("p1", Arrays.asList(1L, 2L))
+            .containsEntry(EntityManager.LIMIT_PARAMETER, 10)
+            .containsEntry(EntityManager.OFFSET_PARAMETER, 20L);
+    }
+
+    @Test
+    void assertThatUnknownSortPropertyIsRejected() {
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("title; DROP TABLE point"));
+
+        assertThatThrownBy(() -> entityManager.createSelect(TABLE, COLUMNS, Point.class, pageable, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
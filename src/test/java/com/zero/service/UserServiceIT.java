@@ -1,22 +1,31 @@
 package com.zero.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.zero.IntegrationTest;
+import com.zero.config.ApplicationProperties;
 import com.zero.config.Constants;
+import com.zero.domain.Authority;
 import com.zero.domain.User;
 import com.zero.repository.UserRepository;
+import com.zero.security.AuthoritiesConstants;
 import com.zero.service.dto.AdminUserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageRequest;
 import tech.jhipster.security.RandomUtil;
 
@@ -41,13 +50,24 @@ class UserServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private User user;
 
     @BeforeEach
     public void init() {
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
         user = new User();
@@ -62,6 +82,46 @@ class UserServiceIT {
         user.setCreatedBy(Constants.SYSTEM);
     }
 
+    @Test
+    void assertThatUserWithAuthoritiesIsCachedUntilChanged() {
+        userRepository.save(user).block();
+
+        User found = userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block();
+        assertThat(found.getFirstName()).isEqualTo(user.getFirstName());
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNotNull();
+
+        // the cached user is a copy, which the callers can't change
+        found.setFirstName("changed");
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getFirstName()).isEqualTo(user.getFirstName());
+
+        userService.deleteUser(DEFAULT_LOGIN).block();
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(DEFAULT_LOGIN)).isNull();
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).blockOptional()).isNotPresent();
+    }
+
+    @Test
+    void assertThatOnlyChangedAuthoritiesAreWritten() {
+        user.setAuthorities(new HashSet<>(Arrays.asList(authority(AuthoritiesConstants.USER), authority(AuthoritiesConstants.ADMIN))));
+        User saved = userService.saveUser(user).block();
+
+        // unchanged authorities are not written
+        List<String> sameAuthorities = Arrays.asList(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+        assertThat(userRepository.updateUserAuthorities(saved.getId(), sameAuthorities).block()).isZero();
+
+        saved.setAuthorities(new HashSet<>(Collections.singletonList(authority(AuthoritiesConstants.USER))));
+        userService.saveUser(saved).block();
+
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactly(AuthoritiesConstants.USER);
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+
     @Test
     void assertThatUserMustExistToResetPassword() {
         userRepository.save(user).block();
@@ -145,7 +205,7 @@ class UserServiceIT {
             .collectList()
             .block();
         assertThat(users).isNotEmpty();
-        userService.removeNotActivatedUsers();
+        assertThat(userService.removeNotActivatedUsersReactively().block()).isEqualTo(1L);
         users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo).collectList().block();
         assertThat(users).isEmpty();
     }
@@ -163,8 +223,90 @@ class UserServiceIT {
             .collectList()
             .block();
         assertThat(users).isEmpty();
-        userService.removeNotActivatedUsers();
+        assertThat(userService.removeNotActivatedUsersReactively().block()).isZero();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId()).blockOptional();
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    void assertThatNotActivatedUsersAreDeletedByChunks() {
+        applicationProperties.getUserCleanup().setChunkSize(2);
+        try {
+            Instant fourDaysAgo = Instant.now().minus(4, ChronoUnit.DAYS);
+            for (int i = 0; i < 5; i++) {
+                User notActivated = createNotActivatedUser("expired" + i);
+                notActivated.setAuthorities(new HashSet<>(Collections.singleton(authority(AuthoritiesConstants.USER))));
+                notActivated = userService.saveUser(notActivated).block();
+                notActivated.setCreatedDate(fourDaysAgo);
+                userRepository.save(notActivated).block();
+            }
+            userRepository.save(createNotActivatedUser("recent")).block();
+
+            assertThat(userService.removeNotActivatedUsersReactively().block()).isEqualTo(5L);
+            assertThat(userRepository.findAll().map(User::getLogin).collectList().block()).containsExactly("recent");
+            assertThat(meterRegistry.get("user.cleanup.duration").timer().count()).isPositive();
+        } finally {
+            applicationProperties.getUserCleanup().setChunkSize(500);
+        }
+    }
+
+    @Test
+    void assertThatNotActivatedUsersAreOnlyCountedInDryRun() {
+        applicationProperties.getUserCleanup().setDryRun(true);
+        try {
+            User notActivated = userRepository.save(createNotActivatedUser("expired")).block();
+            notActivated.setCreatedDate(Instant.now().minus(4, ChronoUnit.DAYS));
+            userRepository.save(notActivated).block();
+
+            assertThat(userService.removeNotActivatedUsersReactively().block()).isEqualTo(1L);
+            assertThat(userRepository.findById(notActivated.getId()).blockOptional()).isPresent();
+        } finally {
+            applicationProperties.getUserCleanup().setDryRun(false);
+        }
+    }
+
+    @Test
+    void assertThatNotActivatedUsersOfLoginAndEmailAreReplacedOnRegistration() {
+        User withLogin = createNotActivatedUser(DEFAULT_LOGIN);
+        withLogin.setEmail("other@localhost");
+        withLogin = userRepository.save(withLogin).block();
+        User withEmail = createNotActivatedUser("other");
+        withEmail.setEmail(DEFAULT_EMAIL.toUpperCase());
+        withEmail = userRepository.save(withEmail).block();
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin(DEFAULT_LOGIN);
+        userDTO.setEmail(DEFAULT_EMAIL);
+        userDTO.setLangKey(DEFAULT_LANGKEY);
+
+        User registered = userService.registerUser(userDTO, "password").block();
+
+        assertThat(userRepository.findById(withLogin.getId()).blockOptional()).isNotPresent();
+        assertThat(userRepository.findById(withEmail.getId()).blockOptional()).isNotPresent();
+        assertThat(userRepository.findAllByLoginOrEmailIgnoreCase(DEFAULT_LOGIN, DEFAULT_EMAIL).collectList().block())
+            .extracting(User::getId)
+            .containsExactly(registered.getId());
+    }
+
+    @Test
+    void assertThatActivatedUserOfEmailPreventsRegistration() {
+        userRepository.save(user).block();
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin("other");
+        userDTO.setEmail(DEFAULT_EMAIL.toUpperCase());
+        userDTO.setLangKey(DEFAULT_LANGKEY);
+
+        assertThatThrownBy(() -> userService.registerUser(userDTO, "password").block()).isInstanceOf(EmailAlreadyUsedException.class);
+    }
+
+    private User createNotActivatedUser(String login) {
+        User notActivated = new User();
+        notActivated.setLogin(login);
+        notActivated.setPassword(RandomStringUtils.random(60));
+        notActivated.setActivated(false);
+        notActivated.setActivationKey(RandomStringUtils.random(20));
+        notActivated.setEmail(login + "@localhost");
+        notActivated.setLangKey(DEFAULT_LANGKEY);
+        notActivated.setCreatedBy(Constants.SYSTEM);
+        return notActivated;
+    }
 }
@@ -0,0 +1,176 @@
+package com.zero.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zero.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * Unit tests for the {@link RateLimitingWebFilter}.
+ */
+class RateLimitingWebFilterTest {
+
+    private final List<String> forwardedBodies = new ArrayList<>();
+
+    private final WebFilterChain chain = exchange ->
+        DataBufferUtils
+            .join(exchange.getRequest().getBody())
+            .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+            .defaultIfEmpty("")
+            .doOnNext(forwardedBodies::add)
+            .then();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitingWebFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.RateLimit.Route authenticate = new ApplicationProperties.RateLimit.Route();
+        authenticate.setPath("/api/authenticate");
+        authenticate.setPeriod(Duration.ofMinutes(1));
+        authenticate.setIpLimit(2);
+        authenticate.setLoginLimit(1);
+        authenticate.setLoginField("username");
+        applicationProperties.getRateLimit().getRoutes().add(authenticate);
+        ApplicationProperties.RateLimit.Route resetPassword = new ApplicationProperties.RateLimit.Route();
+        resetPassword.setPath("/api/account/reset-password/init");
+        resetPassword.setLoginLimit(1);
+        applicationProperties.getRateLimit().getRoutes().add(resetPassword);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitingWebFilter(applicationProperties, new ObjectMapper(), meterRegistry);
+    }
+
+    private MockServerWebExchange post(String path, String ip, String body) {
+        return MockServerWebExchange.from(
+            MockServerHttpRequest
+                .post(path)
+                .remoteAddress(new InetSocketAddress(ip, 12345))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+        );
+    }
+
+    private MockServerWebExchange forwarded(String forwardedFor) {
+        return MockServerWebExchange.from(
+            MockServerHttpRequest
+                .post("/api/register")
+                .remoteAddress(new InetSocketAddress("10.1.0.1", 12345))
+                .header("X-Forwarded-For", forwardedFor)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{}")
+        );
+    }
+
+    private MockServerWebExchange filter(MockServerWebExchange exchange) {
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    @Test
+    void testRequestsAreLimitedByClientAddress() {
+        assertThat(filter(post("/api/authenticate", "10.0.0.1", "{\"username\":\"a\"}")).getResponse().getStatusCode()).isNull();
+        assertThat(filter(post("/api/authenticate", "10.0.0.1", "{\"username\":\"b\"}")).getResponse().getStatusCode()).isNull();
+
+        MockServerWebExchange rejected = filter(post("/api/authenticate", "10.0.0.1", "{\"username\":\"c\"}"));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(Long.parseLong(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER))).isBetween(1L, 30L);
+        assertThat(filter(post("/api/authenticate", "10.0.0.2", "{\"username\":\"c\"}")).getResponse().getStatusCode()).isNull();
+        assertThat(forwardedBodies).hasSize(3);
+        assertThat(meterRegistry.get("rate.limit.rejected").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRequestsAreLimitedByLogin() {
+        filter(post("/api/authenticate", "10.0.0.1", "{\"username\":\"admin\",\"password\":\"admin\"}"));
+
+        MockServerWebExchange rejected = filter(post("/api/authenticate", "10.0.0.2", "{\"username\":\"ADMIN\"}"));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(forwardedBodies).containsExactly("{\"username\":\"admin\",\"password\":\"admin\"}");
+        assertThat(meterRegistry.get("rate.limit.rejected").tag("key", "login").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPathWithTrailingSlashIsLimited() {
+        filter(post("/api/authenticate", "10.0.0.1", "{\"username\":\"admin\"}"));
+
+        MockServerWebExchange rejected = filter(post("/api/authenticate/", "10.0.0.2", "{\"username\":\"admin\"}"));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(forwardedBodies).hasSize(1);
+    }
+
+    @Test
+    void testLoginIsWholeBodyWithoutLoginField() {
+        filter(post("/api/account/reset-password/init", "10.0.0.1", "user@localhost"));
+
+        MockServerWebExchange rejected = filter(post("/api/account/reset-password/init", "10.0.0.2", "USER@localhost"));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(filter(post("/api/account/reset-password/init", "10.0.0.1", "other@localhost")).getResponse().getStatusCode())
+            .isNull();
+    }
+
+    @Test
+    void testOtherRequestsAreNotLimited() {
+        for (int i = 0; i < 5; i++) {
+            filter(post("/api/account", "10.0.0.1", "{}"));
+            MockServerHttpRequest get = MockServerHttpRequest
+                .get("/api/authenticate")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 12345))
+                .build();
+            filter(MockServerWebExchange.from(get));
+        }
+
+        assertThat(forwardedBodies).hasSize(10);
+    }
+
+    @Test
+    void testClientAddressIsForwardedByTrustedProxy() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRateLimit().setTrustedProxies(1);
+        ApplicationProperties.RateLimit.Route register = new ApplicationProperties.RateLimit.Route();
+        register.setPath("/api/register");
+        register.setIpLimit(1);
+        applicationProperties.getRateLimit().getRoutes().add(register);
+        filter = new RateLimitingWebFilter(applicationProperties, new ObjectMapper(), meterRegistry);
+
+        // The requests come from the same proxy, for two clients
+        assertThat(filter(forwarded("10.0.0.1")).getResponse().getStatusCode()).isNull();
+        assertThat(filter(forwarded("10.0.0.2")).getResponse().getStatusCode()).isNull();
+
+        // The addresses sent by the client are ignored
+        MockServerWebExchange rejected = filter(forwarded("192.168.0.1, 10.0.0.1"));
+
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void testBucketIsRefilledOverTime() {
+        RateLimitingWebFilter.Bucket bucket = new RateLimitingWebFilter.Bucket(0);
+
+        assertThat(bucket.tryAcquire(0, 10, 10)).isZero();
+        assertThat(bucket.tryAcquire(0, 10, 10)).isZero();
+        assertThat(bucket.tryAcquire(0, 10, 10)).isEqualTo(10);
+        assertThat(bucket.tryAcquire(10, 10, 10)).isZero();
+        assertThat(bucket.tryAcquire(10, 10, 10)).isEqualTo(10);
+    }
+}
@@ -1,17 +1,26 @@
 package com.zero.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 
 import com.zero.IntegrationTest;
+import com.zero.config.ApplicationProperties;
 import com.zero.domain.Point;
 import com.zero.repository.PointRepository;
 import com.zero.service.EntityManager;
+import com.zero.service.dto.PointChangeDTO;
+import com.zero.service.dto.PointImportReportDTO;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,9 +29,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 /**
  * Integration tests for the {@link PointResource} REST controller.
@@ -38,6 +56,9 @@ class PointResourceIT {
     private static final String DEFAULT_DESCRIPTION = "AAAAAAAAAA";
     private static final String UPDATED_DESCRIPTION = "BBBBBBBBBB";
 
+    // the default size of the connection pool
+    private static final int DEFAULT_POOL_SIZE = 10;
+
     private static final String ENTITY_API_URL = "/api/points";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
 
@@ -53,6 +74,12 @@ class PointResourceIT {
     @Autowired
     private WebTestClient webTestClient;
 
+    @Autowired
+    private PointResource pointResource;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private Point point;
 
     /**
@@ -117,6 +144,128 @@ class PointResourceIT {
         assertThat(testPoint.getDescription()).isEqualTo(DEFAULT_DESCRIPTION);
     }
 
+    @Test
+    void createPointsInBulk() throws Exception {
+        int databaseSizeBeforeCreate = pointRepository.findAll().collectList().block().size();
+        // Create the Points
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(Arrays.asList(createEntity(em), createUpdatedEntity(em))))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody()
+            .jsonPath("$.length()")
+            .value(is(2));
+
+        // Validate the Points in the database
+        List<Point> pointList = pointRepository.findAll().collectList().block();
+        assertThat(pointList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(pointList).extracting(Point::getTitle).contains(DEFAULT_TITLE, UPDATED_TITLE);
+    }
+
+    @Test
+    void createPointsInBulkWithInvalidPoint() throws Exception {
+        int databaseSizeBeforeCreate = pointRepository.findAll().collectList().block().size();
+        Point invalidPoint = createEntity(em);
+        invalidPoint.setTitle(null);
+
+        // A point is not valid, so this API call must fail
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(
+                new String(TestUtil.convertObjectToJsonBytes(point)) +
+                "\n" +
+                new String(TestUtil.convertObjectToJsonBytes(invalidPoint)) +
+                "\n"
+            )
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+
+        // Validate the Point in the database
+        List<Point> pointList = pointRepository.findAll().collectList().block();
+        assertThat(pointList).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    void importPointsKeepsReportedBatchesWhenCancelled() {
+        int databaseSizeBeforeCreate = pointRepository.findAll().collectList().block().size();
+        int batchSize = applicationProperties.getPoint().getBatchSize();
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        Flux<DataBuffer> lines = Flux
+            .range(0, batchSize)
+            .map(i -> bufferFactory.wrap((DEFAULT_TITLE + i + ",\n").getBytes(StandardCharsets.UTF_8)));
+
+        // The file never ends, so the import is cancelled after the first batch
+        Flux<PointImportReportDTO> reports = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/import")
+            .contentType(MediaType.valueOf("text/csv"))
+            .accept(MediaType.APPLICATION_NDJSON)
+            .body(lines.concatWith(Flux.never()), DataBuffer.class)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(PointImportReportDTO.class)
+            .getResponseBody();
+
+        StepVerifier
+            .create(reports)
+            .assertNext(report -> assertThat(report.getImported()).isEqualTo(batchSize))
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+
+        // Validate that the reported batch is in the database
+        List<Point> pointList = pointRepository.findAll().collectList().block();
+        assertThat(pointList).hasSize(databaseSizeBeforeCreate + batchSize);
+    }
+
+    @Test
+    void importPointsFromCsv() throws Exception {
+        int databaseSizeBeforeCreate = pointRepository.findAll().collectList().block().size();
+
+        // Import a CSV file with a header, two valid lines and a line whose title is too short
+        List<PointImportReportDTO> reports = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/import")
+            .contentType(MediaType.valueOf("text/csv"))
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(
+                "title,description\n" +
+                DEFAULT_TITLE +
+                "," +
+                DEFAULT_DESCRIPTION +
+                "\n" +
+                "short,\n" +
+                "\"" +
+                UPDATED_TITLE +
+                "\",\"with, a comma\"\n"
+            )
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(PointImportReportDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        PointImportReportDTO report = reports.get(reports.size() - 1);
+        assertThat(report.getProcessed()).isEqualTo(3);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(reports.stream().flatMap(r -> r.getErrors().stream()).map(PointImportReportDTO.RowError::getLine)).containsExactly(3L);
+
+        // Validate the Points in the database
+        List<Point> pointList = pointRepository.findAll().collectList().block();
+        assertThat(pointList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(pointList).extracting(Point::getDescription).contains(DEFAULT_DESCRIPTION, "with, a comma");
+    }
+
     @Test
     void createPointWithExistingId() throws Exception {
         // Create the Point with an existing ID
@@ -211,6 +360,199 @@ class PointResourceIT {
             .value(hasItem(DEFAULT_DESCRIPTION));
     }
 
+    @Test
+    void getAllPointsWithFields() {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        // Get only the ids and titles
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=id,title")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists(HttpHeaders.ETAG)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(point.getId().intValue()))
+            .jsonPath("$.[*].title")
+            .value(hasItem(DEFAULT_TITLE))
+            .jsonPath("$.[0].description")
+            .doesNotExist()
+            .jsonPath("$.[0].version")
+            .doesNotExist();
+    }
+
+    @Test
+    void getAllPointsWithFieldsInAnyOrderHaveSameETag() {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=id,title")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getETag();
+
+        // The same representation is not modified, whatever the order of the fields
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=title,id")
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+    }
+
+    @Test
+    void getAllPointsWithUnknownField() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?fields=id,secret")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllPointsWithCursor() {
+        // Initialize the database
+        Point first = pointRepository.save(createEntity(em)).block();
+        Point second = pointRepository.save(createEntity(em)).block();
+        Point third = pointRepository.save(createEntity(em)).block();
+
+        // Get the first page, which links to the next one
+        String link = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(first.getId().intValue(), second.getId().intValue()))
+            .returnResult()
+            .getResponseHeaders()
+            .getFirst(HttpHeaders.LINK);
+        assertThat(link).contains("after=").endsWith("rel=\"next\"");
+
+        // Follow the link to the last page
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        webTestClient
+            .get()
+            .uri(URI.create(next))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(third.getId().intValue()));
+    }
+
+    @Test
+    void getAllPointsWithInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&after=invalid")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllPointsWithInvalidKeysetSort() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?size=2&sort=description,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.sortinvalid");
+    }
+
+    @Test
+    void getPointsByIds() {
+        // Initialize the database
+        Point first = pointRepository.save(createEntity(em)).block();
+        Point second = pointRepository.save(createEntity(em)).block();
+
+        // Get the points in the order of the ids, with a null for the missing one
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?ids={second},{missing},{first}", second.getId(), Long.MAX_VALUE, first.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(3)
+            .jsonPath("$.[0].id")
+            .isEqualTo(second.getId().intValue())
+            .jsonPath("$.[1]")
+            .isEmpty()
+            .jsonPath("$.[2].id")
+            .isEqualTo(first.getId().intValue())
+            .jsonPath("$.[2].title")
+            .isEqualTo(DEFAULT_TITLE);
+    }
+
+    @Test
+    void lookupPoints() {
+        // Initialize the database
+        Point first = pointRepository.save(createEntity(em)).block();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(Arrays.asList(Long.MAX_VALUE, first.getId(), first.getId()))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(3)
+            .jsonPath("$.[0]")
+            .isEmpty()
+            .jsonPath("$.[1].id")
+            .isEqualTo(first.getId().intValue())
+            .jsonPath("$.[2].id")
+            .isEqualTo(first.getId().intValue());
+    }
+
+    @Test
+    void lookupTooManyPoints() {
+        List<Long> ids = LongStream.rangeClosed(1, 5001).boxed().collect(Collectors.toList());
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(ids)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
     @Test
     void getPoint() {
         // Initialize the database
@@ -235,6 +577,371 @@ class PointResourceIT {
             .value(is(DEFAULT_DESCRIPTION));
     }
 
+    @Test
+    void getPointsConcurrentlyWithMoreRequestsThanConnections() {
+        // Initialize the database with more points than the connections of the pool
+        List<Long> ids = Flux
+            .range(0, 3 * DEFAULT_POOL_SIZE)
+            .concatMap(i -> pointRepository.save(createEntity(em)))
+            .map(Point::getId)
+            .collectList()
+            .block();
+
+        // Get all the points at once, each lookup waiting for a batched query
+        List<Point> points = Flux
+            .fromIterable(ids)
+            .flatMap(id -> pointResource.getPoint(id), ids.size())
+            .map(ResponseEntity::getBody)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertThat(points).extracting(Point::getId).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void getPointAfterUpdateAndDelete() throws Exception {
+        // Initialize the database and the cache
+        pointRepository.save(point).block();
+        assertThat(pointRepository.findById(point.getId()).block().getTitle()).isEqualTo(DEFAULT_TITLE);
+
+        // Update the point, the cached point must be evicted
+        Point updatedPoint = new Point().id(point.getId()).title(UPDATED_TITLE).description(UPDATED_DESCRIPTION);
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedPoint))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.title")
+            .value(is(UPDATED_TITLE));
+
+        // Delete the point, it must not be found anymore
+        webTestClient.delete().uri(ENTITY_API_URL_ID, point.getId()).exchange().expectStatus().isNoContent();
+
+        webTestClient.get().uri(ENTITY_API_URL_ID, point.getId()).accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void searchPoint() {
+        // Initialize the database
+        pointRepository.save(point).block();
+        pointRepository.save(createUpdatedEntity(em)).block();
+
+        // Search the point
+        webTestClient
+            .get()
+            .uri("/api/_search/points?q=" + DEFAULT_DESCRIPTION + "&page=0&size=20")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(contains(point.getId().intValue()))
+            .jsonPath("$.[*].title")
+            .value(contains(DEFAULT_TITLE));
+    }
+
+    @Test
+    void getPointNotModified() {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        String eTag = webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Point.class)
+            .getResponseHeaders()
+            .getETag();
+        assertThat(eTag).isEqualTo("\"0\"");
+
+        // The client already has the current version of the point
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .ifNoneMatch(eTag)
+            .exchange()
+            .expectStatus()
+            .isNotModified();
+    }
+
+    @Test
+    void updatePointWithIfMatch() throws Exception {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        Point updatedPoint = new Point().id(point.getId()).title(UPDATED_TITLE).description(UPDATED_DESCRIPTION);
+
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .ifMatch("\"0\"")
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedPoint))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals(HttpHeaders.ETAG, "\"1\"")
+            .expectBody()
+            .jsonPath("$.version")
+            .value(is(1));
+
+        // The point has been modified since version 0 was read, so this API call must fail
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, point.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .ifMatch("\"0\"")
+            .bodyValue(TestUtil.convertObjectToJsonBytes(updatedPoint.title(DEFAULT_TITLE)))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        // Validate the Point in the database
+        Point testPoint = pointRepository.findById(point.getId()).block();
+        assertThat(testPoint.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testPoint.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void getPointChanges() {
+        Flux<ServerSentEvent<PointChangeDTO>> events = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        // Create and delete a point while subscribed, the comments are skipped
+        StepVerifier
+            .create(events.filter(event -> event.event() != null))
+            .then(() -> pointRepository.save(point).block())
+            .assertNext(
+                event -> {
+                    assertThat(event.event()).isEqualTo("created");
+                    assertThat(event.data().getId()).isEqualTo(point.getId());
+                }
+            )
+            .then(() -> pointRepository.deleteById(point.getId()).block())
+            .assertNext(
+                event -> {
+                    assertThat(event.event()).isEqualTo("deleted");
+                    assertThat(event.data().getId()).isEqualTo(point.getId());
+                }
+            )
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void getPointChangesWithoutLastEventIdSkipsHistory() {
+        // The creation is made before the client connects
+        pointRepository.save(point).block();
+
+        Flux<ServerSentEvent<PointChangeDTO>> events = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        // Only the deletion is sent
+        StepVerifier
+            .create(events.filter(event -> event.event() != null))
+            .then(() -> pointRepository.deleteById(point.getId()).block())
+            .assertNext(
+                event -> {
+                    assertThat(event.event()).isEqualTo("deleted");
+                    assertThat(event.data().getId()).isEqualTo(point.getId());
+                }
+            )
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void getPointChangesAfterLastEventId() {
+        Flux<ServerSentEvent<PointChangeDTO>> events = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        // The feed is open, so the creation is sent to the client
+        pointRepository.save(point).block();
+        ServerSentEvent<PointChangeDTO> created = events.filter(event -> event.event() != null).blockFirst(Duration.ofSeconds(10));
+        assertThat(created.event()).isEqualTo("created");
+        pointRepository.deleteById(point.getId()).block();
+
+        // The client reconnects after missing the deletion
+        Flux<ServerSentEvent<PointChangeDTO>> resumed = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", created.id())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        StepVerifier
+            .create(resumed.filter(event -> event.event() != null))
+            .assertNext(
+                event -> {
+                    assertThat(event.event()).isEqualTo("deleted");
+                    assertThat(event.data().getId()).isEqualTo(point.getId());
+                }
+            )
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void getPointChangesAfterLastEventIdOfAnotherInstance() {
+        // The client reconnects with the id of an event sent by another instance
+        Flux<ServerSentEvent<PointChangeDTO>> events = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", "other:1")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        ServerSentEvent<PointChangeDTO> reset = events.filter(event -> event.event() != null).blockFirst(Duration.ofSeconds(10));
+        assertThat(reset.event()).isEqualTo("reset");
+        assertThat(reset.id()).isNotNull().doesNotStartWith("other:");
+
+        // The id of the reset resumes the feed
+        Flux<ServerSentEvent<PointChangeDTO>> resumed = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", reset.id())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<PointChangeDTO>>() {})
+            .getResponseBody();
+
+        StepVerifier
+            .create(resumed.filter(event -> event.event() != null))
+            .then(() -> pointRepository.save(point).block())
+            .assertNext(
+                event -> {
+                    assertThat(event.event()).isEqualTo("created");
+                    assertThat(event.data().getId()).isEqualTo(point.getId());
+                }
+            )
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void exportPoints() {
+        // Initialize the database
+        pointRepository.save(point).block();
+        Point quotedPoint = createUpdatedEntity(em).description("with \"quotes\", and a comma");
+        pointRepository.save(quotedPoint).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/export")
+            .accept(MediaType.valueOf("text/csv"))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.valueOf("text/csv"))
+            .expectBody(String.class)
+            .isEqualTo(
+                "id,title,description,version\n" +
+                point.getId() +
+                "," +
+                DEFAULT_TITLE +
+                "," +
+                DEFAULT_DESCRIPTION +
+                ",0\n" +
+                quotedPoint.getId() +
+                "," +
+                UPDATED_TITLE +
+                ",\"with \"\"quotes\"\", and a comma\",0\n"
+            );
+    }
+
+    @Test
+    void getAllPointsAsCbor() {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        List<Point> points = webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_CBOR)
+            .expectBodyList(Point.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(points).extracting(Point::getId).contains(point.getId());
+    }
+
+    @Test
+    void getAllPointsAsSmileStream() {
+        // Initialize the database
+        pointRepository.save(point).block();
+
+        List<Point> points = webTestClient
+            .get()
+            .uri(ENTITY_API_URL)
+            .accept(MediaType.valueOf("application/stream+x-jackson-smile"))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(Point.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertThat(points).extracting(Point::getTitle).contains(DEFAULT_TITLE);
+    }
+
     @Test
     void getNonExistingPoint() {
         // Get the point
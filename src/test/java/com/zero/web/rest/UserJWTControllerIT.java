@@ -1,14 +1,19 @@
 package com.zero.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import com.zero.IntegrationTest;
 import com.zero.config.Constants;
 import com.zero.domain.User;
 import com.zero.repository.UserRepository;
 import com.zero.web.rest.vm.LoginVM;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -22,12 +27,21 @@ class UserJWTControllerIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
     private WebTestClient webTestClient;
 
+    @BeforeEach
+    public void clearUserCaches() {
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+    }
+
     @Test
     void testAuthorize() throws Exception {
         User user = new User();
@@ -57,6 +71,36 @@ class UserJWTControllerIT {
             .isNotEmpty();
     }
 
+    @Test
+    void testAuthorizeHashesWeakPasswordAgain() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-weak-hash");
+        user.setEmail("user-jwt-controller-weak-hash@example.com");
+        user.setActivated(true);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("test"));
+        user.setCreatedBy(Constants.SYSTEM);
+
+        User savedUser = userRepository.save(user).block();
+        assertThat(passwordEncoder.upgradeEncoding(savedUser.getPassword())).isTrue();
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-weak-hash");
+        login.setPassword("test");
+        webTestClient
+            .post()
+            .uri("/api/authenticate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(login))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        String password = userRepository.findById(savedUser.getId()).block().getPassword();
+        assertThat(password).isNotEqualTo(savedUser.getPassword());
+        assertThat(passwordEncoder.upgradeEncoding(password)).isFalse();
+        assertThat(passwordEncoder.matches("test", password)).isTrue();
+    }
+
     @Test
     void testAuthorizeWithRememberMe() throws Exception {
         User user = new User();
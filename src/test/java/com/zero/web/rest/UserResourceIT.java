@@ -1,6 +1,7 @@
 package com.zero.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
 
 import com.zero.IntegrationTest;
 import com.zero.config.Constants;
@@ -22,6 +23,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -60,6 +62,9 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     private AuthorityRepository authorityRepository;
 
@@ -120,6 +125,8 @@ class UserResourceIT {
 
     @BeforeEach
     public void initTest() {
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
         user = initTestUser(userRepository, em);
     }
 
@@ -287,6 +294,83 @@ class UserResourceIT {
         assertThat(foundUser.getAuthorities()).containsExactly(AuthoritiesConstants.USER);
     }
 
+    @Test
+    void getAllUsersPagedAndSorted() {
+        // Initialize the database
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            User pagedUser = createEntity(em);
+            pagedUser.setLogin("paged" + i);
+            users.add(userRepository.save(pagedUser).block());
+        }
+        userRepository.saveUserAuthority(users.get(2).getId(), AuthoritiesConstants.USER).block();
+        userRepository.saveUserAuthority(users.get(2).getId(), AuthoritiesConstants.ADMIN).block();
+        userRepository.saveUserAuthority(users.get(1).getId(), AuthoritiesConstants.USER).block();
+
+        // Get the first page, whose users have all their authorities
+        List<AdminUserDTO> firstPage = webTestClient
+            .get()
+            .uri("/api/admin/users?sort=login,desc&page=0&size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "3")
+            .returnResult(AdminUserDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(firstPage).extracting(AdminUserDTO::getLogin).containsExactly("paged3", "paged2");
+        assertThat(firstPage.get(0).getAuthorities()).containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+        assertThat(firstPage.get(1).getAuthorities()).containsExactly(AuthoritiesConstants.USER);
+
+        // Get the second page
+        List<AdminUserDTO> secondPage = webTestClient
+            .get()
+            .uri("/api/admin/users?sort=login,desc&page=1&size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(AdminUserDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(secondPage).extracting(AdminUserDTO::getLogin).containsExactly("paged1");
+        assertThat(secondPage.get(0).getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void getAllUsersWithFields() {
+        // Initialize the database
+        userRepository.save(user).block();
+        authorityRepository
+            .findById(AuthoritiesConstants.USER)
+            .flatMap(authority -> userRepository.saveUserAuthority(user.getId(), authority.getName()))
+            .block();
+
+        // Get only the logins and authorities
+        webTestClient
+            .get()
+            .uri("/api/admin/users?sort=id,DESC&fields=login,authorities")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].login")
+            .isEqualTo(DEFAULT_LOGIN)
+            .jsonPath("$.[0].authorities")
+            .value(hasItem(AuthoritiesConstants.USER))
+            .jsonPath("$.[0].email")
+            .doesNotExist()
+            .jsonPath("$.[0].id")
+            .doesNotExist();
+    }
+
     @Test
     void getUser() {
         // Initialize the database